@@ -0,0 +1,76 @@
+package hdxian.jdbc.bench;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.repository.MemberSchema;
+import org.h2.tools.Server;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+
+/**
+ * 벤치마크용 H2
+ * 벤치마크 JVM 안에서 H2 TCP 서버를 띄워서 ConnectionConst.URL(jdbc:h2:tcp://localhost/~/test)을 그대로 사용한다.
+ * -> DBConnectionUtil에 URL이 고정된 V0도 다른 버전과 같은 DB, 같은 경로(TCP)로 비교할 수 있음
+ * 이미 9092 포트에 H2 서버가 떠 있으면 그 서버를 사용한다.
+ */
+public abstract class BenchmarkDatabase {
+
+    // 벤치마크가 만드는 회원 id의 prefix (member_id varchar(10))
+    public static final String ID_PREFIX = "bm";
+
+    private static Server server;
+
+    public static synchronized void start() {
+        if (server != null) {
+            return;
+        }
+
+        try {
+            server = Server.createTcpServer("-tcpPort", "9092", "-tcpDaemon", "-ifNotExists").start();
+        } catch (SQLException e) {
+            // 포트 사용 중 -> 외부 H2 서버 사용
+            server = null;
+        }
+
+        createTable();
+    }
+
+    public static HikariDataSource dataSource(int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername(USERNAME);
+        dataSource.setPassword(PASSWORD);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setPoolName("bench");
+        return dataSource;
+    }
+
+    // 벤치마크가 만든 행 삭제
+    public static void clean(DataSource dataSource) {
+        execute(dataSource, "delete from member where member_id like '" + ID_PREFIX + "%'");
+    }
+
+    public static void execute(DataSource dataSource, String sql) {
+        try (Connection con = dataSource.getConnection(); Statement st = con.createStatement()) {
+            st.executeUpdate(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void createTable() {
+        try (HikariDataSource dataSource = dataSource(1)) {
+            execute(dataSource, "create table if not exists member (" +
+                    "member_id varchar(10), " +
+                    "money integer not null default 0, " +
+                    "version integer not null default 0, " +
+                    "primary key (member_id))");
+            MemberSchema.migrate(dataSource); // version 컬럼이 없던 기존 테이블
+        }
+    }
+
+}
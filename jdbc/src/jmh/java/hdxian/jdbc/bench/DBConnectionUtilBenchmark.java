@@ -0,0 +1,56 @@
+package hdxian.jdbc.bench;
+
+import hdxian.jdbc.connection.DBConnectionUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+
+/**
+ * DBConnectionUtil 커넥션 풀 vs 이전 동작(DriverManager로 매번 새 커넥션)
+ * 커넥션 획득 + 쿼리 1건 + close()
+ *
+ * gradle jmh -PjmhIncludes=DBConnectionUtilBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBConnectionUtilBenchmark {
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkDatabase.start();
+    }
+
+    @Benchmark
+    public int driverManager() throws SQLException {
+        // 풀 적용 전의 DBConnectionUtil.getConnection()
+        try (Connection con = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+            return selectOne(con);
+        }
+    }
+
+    @Benchmark
+    public int pooled() throws SQLException {
+        try (Connection con = DBConnectionUtil.getConnection()) {
+            return selectOne(con);
+        }
+    }
+
+    private static int selectOne(Connection con) throws SQLException {
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("select 1")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+}
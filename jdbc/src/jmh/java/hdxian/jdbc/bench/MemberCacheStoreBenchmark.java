@@ -0,0 +1,104 @@
+package hdxian.jdbc.bench;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.cache.MemberCacheStore;
+import hdxian.jdbc.repository.cache.OffHeapMemberCacheStore;
+import hdxian.jdbc.repository.cache.OnHeapMemberCacheStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 힙 캐시(OnHeapMemberCacheStore)와 힙 밖 캐시(OffHeapMemberCacheStore) 비교 - DB 없이 저장소만 측정
+ * - 항목당 메모리: setup에서 채우기 전후의 힙 사용량(GC 후)과 direct 버퍼 사용량 차이를 로그로 남김
+ * - get, put: 캐시가 가득 찬 상태에서 임의의 id 조회/갱신
+ * - allocate: 캐시를 그대로 둔 채 다른 객체를 계속 할당 -> GC가 돌 때 살아 있는 캐시 객체 수에 따른 GC 시간 차이
+ *   (gc 프로파일러의 gc.count, gc.time 비교)
+ *
+ * gradle jmh -PjmhIncludes=MemberCacheStoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:MaxDirectMemorySize=1g"})
+public class MemberCacheStoreBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberCacheStoreBenchmark.class); // src/jmh는 lombok 미적용
+
+    @Param({"onHeap", "offHeap"})
+    public String store;
+
+    @Param({"1000000"})
+    public int entries;
+
+    private MemberCacheStore cache;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ids = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            ids[i] = "bm" + Integer.toString(i, 36);
+        }
+
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        cache = switch (store) {
+            case "onHeap" -> new OnHeapMemberCacheStore(entries, TimeUnit.HOURS.toMillis(1));
+            case "offHeap" -> new OffHeapMemberCacheStore(entries, TimeUnit.HOURS.toMillis(1));
+            default -> throw new IllegalArgumentException("unknown store: " + store);
+        };
+        for (int i = 0; i < entries; i++) {
+            cache.put(new Member(ids[i], i));
+        }
+
+        long heapBytes = usedHeap() - heapBefore;
+        long directBytes = usedDirect() - directBefore;
+        // ids 배열의 String은 양쪽 모두 살아 있음 -> OnHeap은 key로 같은 String을 참조하므로 항목당 값에 String이 포함되지 않음
+        log.info("[MemberCacheStoreBenchmark.setup] store={}, entries={}, heap={} bytes ({}/entry), direct={} bytes ({}/entry)",
+                store, cache.size(), heapBytes, String.format("%.1f", (double) heapBytes / entries),
+                directBytes, String.format("%.1f", (double) directBytes / entries));
+    }
+
+    @Benchmark
+    public Member get() {
+        return cache.get(ids[ThreadLocalRandom.current().nextInt(entries)]);
+    }
+
+    @Benchmark
+    public void put() {
+        int i = ThreadLocalRandom.current().nextInt(entries);
+        cache.put(new Member(ids[i], i));
+    }
+
+    @Benchmark
+    public void allocate(Blackhole blackhole) {
+        blackhole.consume(new byte[1024]);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+}
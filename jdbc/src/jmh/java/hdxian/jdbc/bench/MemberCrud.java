@@ -0,0 +1,96 @@
+package hdxian.jdbc.bench;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * V0 ~ V5 리포지토리를 같은 방식으로 호출하기 위한 어댑터
+ * V0 ~ V3은 공통 인터페이스가 없고(throws SQLException), V4_1 이후는 MemberRepository를 구현한다.
+ */
+interface MemberCrud {
+
+    void save(Member member) throws SQLException;
+
+    Member findById(String memberId) throws SQLException;
+
+    Optional<Member> findOptionalById(String memberId) throws SQLException;
+
+    boolean existsById(String memberId) throws SQLException;
+
+    void update(String memberId, int money) throws SQLException;
+
+    void delete(String memberId) throws SQLException;
+
+    static MemberCrud of(String generation, DataSource dataSource) {
+        return switch (generation) {
+            case "V0" -> v0(new MemberRepositoryV0()); // DBConnectionUtil -> SimpleConnectionPool (DataSource 대신 정적 풀, 호출마다 빌리고 반납)
+            case "V1" -> v1(new MemberRepositoryV1(dataSource));
+            case "V2" -> v2(new MemberRepositoryV2(dataSource)); // 커넥션 파라미터가 없는 메서드 (V1과 같은 경로)
+            case "V3" -> v3(new MemberRepositoryV3(dataSource));
+            case "V4_1" -> of(new MemberRepositoryV4_1(dataSource));
+            case "V4_2" -> of(new MemberRepositoryV4_2(dataSource));
+            case "V5" -> of(new MemberRepositoryV5(dataSource));
+            default -> throw new IllegalArgumentException("unknown generation: " + generation);
+        };
+    }
+
+    static MemberCrud of(MemberRepository repository) {
+        return new MemberCrud() {
+            public void save(Member member) { repository.save(member); }
+            public Member findById(String memberId) { return repository.findById(memberId); }
+            public Optional<Member> findOptionalById(String memberId) { return repository.findOptionalById(memberId); }
+            public boolean existsById(String memberId) { return repository.existsById(memberId); }
+            public void update(String memberId, int money) { repository.update(memberId, money); }
+            public void delete(String memberId) { repository.delete(memberId); }
+        };
+    }
+
+    private static MemberCrud v0(MemberRepositoryV0 repository) {
+        return new MemberCrud() {
+            public void save(Member member) throws SQLException { repository.save(member); }
+            public Member findById(String memberId) throws SQLException { return repository.findById(memberId); }
+            public Optional<Member> findOptionalById(String memberId) throws SQLException { return repository.findOptionalById(memberId); }
+            public boolean existsById(String memberId) throws SQLException { return repository.existsById(memberId); }
+            public void update(String memberId, int money) throws SQLException { repository.update(memberId, money); }
+            public void delete(String memberId) throws SQLException { repository.delete(memberId); }
+        };
+    }
+
+    private static MemberCrud v1(MemberRepositoryV1 repository) {
+        return new MemberCrud() {
+            public void save(Member member) throws SQLException { repository.save(member); }
+            public Member findById(String memberId) throws SQLException { return repository.findById(memberId); }
+            public Optional<Member> findOptionalById(String memberId) throws SQLException { return repository.findOptionalById(memberId); }
+            public boolean existsById(String memberId) throws SQLException { return repository.existsById(memberId); }
+            public void update(String memberId, int money) throws SQLException { repository.update(memberId, money); }
+            public void delete(String memberId) throws SQLException { repository.delete(memberId); }
+        };
+    }
+
+    private static MemberCrud v2(MemberRepositoryV2 repository) {
+        return new MemberCrud() {
+            public void save(Member member) throws SQLException { repository.save(member); }
+            public Member findById(String memberId) throws SQLException { return repository.findById(memberId); }
+            public Optional<Member> findOptionalById(String memberId) throws SQLException { return repository.findOptionalById(memberId); }
+            public boolean existsById(String memberId) throws SQLException { return repository.existsById(memberId); }
+            public void update(String memberId, int money) throws SQLException { repository.update(memberId, money); }
+            public void delete(String memberId) throws SQLException { repository.delete(memberId); }
+        };
+    }
+
+    private static MemberCrud v3(MemberRepositoryV3 repository) {
+        return new MemberCrud() {
+            public void save(Member member) throws SQLException { repository.save(member); }
+            public Member findById(String memberId) throws SQLException { return repository.findById(memberId); }
+            public Optional<Member> findOptionalById(String memberId) throws SQLException { return repository.findOptionalById(memberId); }
+            public boolean existsById(String memberId) throws SQLException { return repository.existsById(memberId); }
+            public void update(String memberId, int money) throws SQLException { repository.update(memberId, money); }
+            public void delete(String memberId) throws SQLException { repository.delete(memberId); }
+        };
+    }
+
+}
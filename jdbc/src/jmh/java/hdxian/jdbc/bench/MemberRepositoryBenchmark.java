@@ -0,0 +1,99 @@
+package hdxian.jdbc.bench;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.domain.Member;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 리포지토리 세대별(V0 ~ V5) CRUD 비용 비교
+ * - V0: DriverManager (호출마다 새 TCP 커넥션)
+ * - V1, V2: DataSource(HikariCP) + JdbcUtils
+ * - V3, V4_1, V4_2: DataSourceUtils (트랜잭션 동기화)
+ * - V5: JdbcTemplate
+ * 트랜잭션 없이 호출하므로 각 연산은 auto commit 1건.
+ *
+ * gradle jmh -PjmhIncludes=MemberRepositoryBenchmark
+ * 처리량(thrpt), 평균 지연(avgt), gc 프로파일러의 gc.alloc.rate.norm(연산당 할당 바이트)을 리포트한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberRepositoryBenchmark {
+
+    private static final String FIXTURE_ID = BenchmarkDatabase.ID_PREFIX + "Fixture";
+
+    // delete 대상 행 id 발급용 (스레드 간 공유)
+    private static final AtomicLong DELETE_SEQUENCE = new AtomicLong();
+
+    @Param({"V0", "V1", "V2", "V3", "V4_1", "V4_2", "V5"})
+    public String generation;
+
+    private HikariDataSource dataSource;
+    private MemberCrud repository;
+    private final AtomicLong saveSequence = new AtomicLong();
+    private final AtomicLong money = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        BenchmarkDatabase.start();
+        dataSource = BenchmarkDatabase.dataSource(10);
+        repository = MemberCrud.of(generation, dataSource);
+
+        BenchmarkDatabase.clean(dataSource);
+        repository.save(new Member(FIXTURE_ID, 10000));
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanSaved() {
+        // save()가 만든 행이 반복(iteration)마다 쌓이지 않도록 정리
+        BenchmarkDatabase.execute(dataSource, "delete from member where member_id like '" + BenchmarkDatabase.ID_PREFIX + "S%'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.clean(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void save() throws SQLException {
+        repository.save(new Member(BenchmarkDatabase.ID_PREFIX + "S" + Long.toString(saveSequence.incrementAndGet(), 36), 0));
+    }
+
+    @Benchmark
+    public Member findById() throws SQLException {
+        return repository.findById(FIXTURE_ID);
+    }
+
+    @Benchmark
+    public void update() throws SQLException {
+        repository.update(FIXTURE_ID, (int) money.incrementAndGet());
+    }
+
+    @Benchmark
+    public void delete(DeleteTarget target) throws SQLException {
+        repository.delete(target.memberId);
+    }
+
+    // delete할 행을 호출 직전에 만들어 둠 (Level.Invocation: 준비 시간은 측정에서 제외)
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+
+        String memberId;
+
+        @Setup(Level.Invocation)
+        public void insert(MemberRepositoryBenchmark benchmark) {
+            memberId = BenchmarkDatabase.ID_PREFIX + "D" + Long.toString(DELETE_SEQUENCE.incrementAndGet(), 36);
+            BenchmarkDatabase.execute(benchmark.dataSource, "insert into member(member_id, money) values ('" + memberId + "', 0)");
+        }
+
+    }
+
+}
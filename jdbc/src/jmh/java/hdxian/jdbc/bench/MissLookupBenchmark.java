@@ -0,0 +1,87 @@
+package hdxian.jdbc.bench;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.domain.Member;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 조회의 50%가 없는 id인 경우, 없음을 알리는 방식별 비용 비교
+ * - findById: 없으면 예외 (NoSuchElementException, V5는 EmptyResultDataAccessException) -> 호출 측에서 catch
+ * - findOptionalById: 없으면 빈 Optional
+ * - existsById: 존재 여부만
+ * 예외 방식은 미스마다 예외 객체 생성 + 스택 트레이스 수집 비용이 추가된다. (gc 프로파일러의 연산당 할당량도 비교)
+ *
+ * gradle jmh -PjmhIncludes=MissLookupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MissLookupBenchmark {
+
+    private static final String HIT_ID = BenchmarkDatabase.ID_PREFIX + "Hit";
+    private static final String MISS_ID = BenchmarkDatabase.ID_PREFIX + "Miss"; // 저장하지 않는 id
+
+    @Param({"V0", "V1", "V2", "V3", "V4_1", "V4_2", "V5"})
+    public String generation;
+
+    private HikariDataSource dataSource;
+    private MemberCrud repository;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        BenchmarkDatabase.start();
+        dataSource = BenchmarkDatabase.dataSource(10);
+        repository = MemberCrud.of(generation, dataSource);
+
+        BenchmarkDatabase.clean(dataSource);
+        repository.save(new Member(HIT_ID, 10000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.clean(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Member findById(Lookup lookup) throws SQLException {
+        try {
+            return repository.findById(lookup.nextId());
+        } catch (NoSuchElementException | EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Optional<Member> findOptionalById(Lookup lookup) throws SQLException {
+        return repository.findOptionalById(lookup.nextId());
+    }
+
+    @Benchmark
+    public boolean existsById(Lookup lookup) throws SQLException {
+        return repository.existsById(lookup.nextId());
+    }
+
+    // 스레드마다 있는 id와 없는 id를 번갈아 조회 -> 미스 비율 50%
+    @State(Scope.Thread)
+    public static class Lookup {
+
+        private boolean hit;
+
+        String nextId() {
+            hit = !hit;
+            return hit ? HIT_ID : MISS_ID;
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package hdxian.jdbc.bench;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.connection.PreparedStatementCache;
+import hdxian.jdbc.repository.MemberRepositoryV3;
+import hdxian.jdbc.service.MemberServiceV3_2;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PreparedStatementCache 적용 전후의 이체 비용
+ * MemberServiceV3_2(TransactionTemplate) + MemberRepositoryV3
+ * 이체 1건 = findById 2번 + update 2번 -> 캐시 적용 시 prepareStatement가 4번에서 2번으로 줄어듦
+ * (H2 TCP 클라이언트는 prepareStatement마다 서버 왕복이 있음)
+ *
+ * gradle jmh -PjmhIncludes=StatementCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+    private static final String MEMBER_A = BenchmarkDatabase.ID_PREFIX + "CacheA";
+    private static final String MEMBER_B = BenchmarkDatabase.ID_PREFIX + "CacheB";
+
+    @Param({"false", "true"})
+    public boolean statementCache;
+
+    private HikariDataSource dataSource;
+    private MemberServiceV3_2 memberService;
+    private boolean forward = true;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkDatabase.start();
+        dataSource = BenchmarkDatabase.dataSource(10);
+        BenchmarkDatabase.clean(dataSource);
+        BenchmarkDatabase.execute(dataSource, "insert into member(member_id, money) values ('" + MEMBER_A + "', 1000000)");
+        BenchmarkDatabase.execute(dataSource, "insert into member(member_id, money) values ('" + MEMBER_B + "', 1000000)");
+
+        MemberRepositoryV3 repository = statementCache
+                ? new MemberRepositoryV3(dataSource, new PreparedStatementCache(16))
+                : new MemberRepositoryV3(dataSource);
+        memberService = new MemberServiceV3_2(new DataSourceTransactionManager(dataSource), repository);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.clean(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void accountTransfer() {
+        if (forward) {
+            memberService.accountTransfer(MEMBER_A, MEMBER_B, 1);
+        } else {
+            memberService.accountTransfer(MEMBER_B, MEMBER_A, 1);
+        }
+        forward = !forward;
+    }
+
+}
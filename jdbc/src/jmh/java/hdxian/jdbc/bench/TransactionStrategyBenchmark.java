@@ -0,0 +1,231 @@
+package hdxian.jdbc.bench;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.repository.MemberRepositoryV2;
+import hdxian.jdbc.repository.MemberRepositoryV3;
+import hdxian.jdbc.repository.MemberRepositoryV5;
+import hdxian.jdbc.service.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 트랜잭션 적용 방식별 accountTransfer 비용 비교
+ * - RAW: 스프링 없이 JDBC만 사용 (findById x2 + update x2, 수동 커밋) -> SQL 자체 비용의 기준값
+ * - V2: 서비스 계층에서 커넥션을 얻어 setAutoCommit(false)
+ * - V3_1: PlatformTransactionManager (+ 트랜잭션 동기화)
+ * - V3_2: TransactionTemplate
+ * - V3_3: @Transactional AOP 프록시
+ * - RAW_RELATIVE / V4: 상대값 출금/입금 2문장 (V4는 @Transactional 프록시, RAW_RELATIVE가 기준값)
+ * 각 방식의 지연에서 같은 SQL을 쓰는 RAW 값을 빼면 트랜잭션 동기화, 템플릿, 프록시가 더하는 비용이 된다.
+ *
+ * 스레드마다 자기 계좌 2개 사이에서만 이체 -> 행 락 경합 없이 트랜잭션 처리 비용만 측정
+ * SampleTime 모드로 이체 1건의 지연 분포(p50, p90, p99, p99.9)를 리포트한다.
+ * 1, 8, 64 스레드로 모두 실행하려면 main()을 실행 (gradle jmhJar 후 java -cp build/libs/*-jmh.jar 이 클래스)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionStrategyBenchmark {
+
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger();
+
+    @Param({"RAW", "V2", "V3_1", "V3_2", "V3_3", "RAW_RELATIVE", "V4"})
+    public String strategy;
+
+    private HikariDataSource dataSource;
+    private AnnotationConfigApplicationContext context;
+    private Transfer transfer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkDatabase.start();
+        // 64 스레드에서도 커넥션 대기가 생기지 않도록 풀 크기를 스레드 수에 맞춤
+        dataSource = BenchmarkDatabase.dataSource(64);
+        BenchmarkDatabase.clean(dataSource);
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(DataSource.class, () -> dataSource);
+        context.register(ProxyConfig.class);
+        context.refresh();
+
+        transfer = transfer(strategy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        BenchmarkDatabase.clean(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void accountTransfer(Accounts accounts) throws Exception {
+        // 방향을 번갈아 이체 -> 잔액이 한쪽으로 쏠리지 않음
+        if (accounts.forward) {
+            transfer.transfer(accounts.memberA, accounts.memberB, 1);
+        } else {
+            transfer.transfer(accounts.memberB, accounts.memberA, 1);
+        }
+        accounts.forward = !accounts.forward;
+    }
+
+    private Transfer transfer(String strategy) {
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+
+        return switch (strategy) {
+            case "RAW" -> this::rawTransfer;
+            case "V2" -> new MemberServiceV2(dataSource, new MemberRepositoryV2(dataSource))::accountTransfer;
+            case "V3_1" -> new MemberServiceV3_1(transactionManager, new MemberRepositoryV3(dataSource))::accountTransfer;
+            case "V3_2" -> new MemberServiceV3_2(transactionManager, new MemberRepositoryV3(dataSource))::accountTransfer;
+            case "V3_3" -> context.getBean(MemberServiceV3_3.class)::accountTransfer; // AOP 프록시
+            case "RAW_RELATIVE" -> this::rawRelativeTransfer;
+            case "V4" -> context.getBean(MemberServiceV4.class)::accountTransfer; // AOP 프록시
+            default -> throw new IllegalArgumentException("unknown strategy: " + strategy);
+        };
+    }
+
+    // 기준값: V3_3과 같은 SQL (조회 2번 + 절대값 update 2번)
+    private void rawTransfer(String fromId, String toId, int amount) throws SQLException {
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                int fromMoney = selectMoney(con, fromId);
+                int toMoney = selectMoney(con, toId);
+                execute(con, "update member set money = ? where member_id = ?", fromMoney - amount, fromId);
+                execute(con, "update member set money = ? where member_id = ?", toMoney + amount, toId);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    // 기준값: V4와 같은 SQL (상대값 출금/입금 2번)
+    private void rawRelativeTransfer(String fromId, String toId, int amount) throws SQLException {
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                query(con, "select * from final table (update member set money = money - ? where member_id = ? and money >= ?)", amount, fromId, amount);
+                query(con, "select * from final table (update member set money = money + ? where member_id = ?)", amount, toId);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static int selectMoney(Connection con, String memberId) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement("select * from member where member_id = ?")) {
+            pstmt.setString(1, memberId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getInt("money");
+            }
+        }
+    }
+
+    private static void execute(Connection con, String sql, int money, String memberId) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, money);
+            pstmt.setString(2, memberId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static void query(Connection con, String sql, Object... params) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(TransactionStrategyBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("tx-strategy-" + threads + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    @FunctionalInterface
+    interface Transfer {
+        void transfer(String fromId, String toId, int amount) throws Exception;
+    }
+
+    // 스레드 전용 계좌 2개
+    @State(Scope.Thread)
+    public static class Accounts {
+
+        String memberA;
+        String memberB;
+        boolean forward = true;
+
+        @Setup(Level.Trial)
+        public void setup(TransactionStrategyBenchmark benchmark) {
+            String suffix = Integer.toString(THREAD_SEQUENCE.incrementAndGet(), 36);
+            memberA = BenchmarkDatabase.ID_PREFIX + "Ta" + suffix;
+            memberB = BenchmarkDatabase.ID_PREFIX + "Tb" + suffix;
+            BenchmarkDatabase.execute(benchmark.dataSource, "insert into member(member_id, money) values ('" + memberA + "', 1000000)");
+            BenchmarkDatabase.execute(benchmark.dataSource, "insert into member(member_id, money) values ('" + memberB + "', 1000000)");
+        }
+
+    }
+
+    // @Transactional 프록시가 필요한 V3_3, V4 용 스프링 컨텍스트
+    @Configuration
+    @EnableTransactionManagement
+    static class ProxyConfig {
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        MemberServiceV3_3 memberServiceV3_3(DataSource dataSource) {
+            return new MemberServiceV3_3(new MemberRepositoryV3(dataSource));
+        }
+
+        @Bean
+        MemberServiceV4 memberServiceV4(DataSource dataSource) {
+            return new MemberServiceV4(new MemberRepositoryV5(dataSource));
+        }
+
+    }
+
+}
@@ -5,4 +5,9 @@ public abstract class ConnectionConst {
     public static final String URL = "jdbc:h2:tcp://localhost/~/test";
     public static final String USERNAME = "sa";
     public static final String PASSWORD = "";
+
+    // DBConnectionUtil connection pool (same defaults as HikariCP)
+    public static final int POOL_MAX_SIZE = 10;
+    public static final long POOL_MAX_WAIT_MILLIS = 30_000;
+    public static final long POOL_IDLE_TIMEOUT_MILLIS = 600_000;
 }
@@ -3,7 +3,6 @@ package hdxian.jdbc.connection;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 import static hdxian.jdbc.connection.ConnectionConst.*;
@@ -11,11 +10,16 @@ import static hdxian.jdbc.connection.ConnectionConst.*;
 @Slf4j
 public class DBConnectionUtil {
 
+    // DriverManager로 매번 새 TCP 커넥션을 여는 대신 풀에서 빌려줌.
+    // 받은 커넥션의 close()는 풀에 반납 -> V0처럼 사용 후 close()하는 코드는 그대로 동작.
+    private static final SimpleConnectionPool pool =
+            new SimpleConnectionPool(URL, USERNAME, PASSWORD, POOL_MAX_SIZE, POOL_MAX_WAIT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS);
+
     public static Connection getConnection() {
 
         try {
-            // DriverManager gets JDBC Driver from libs automatically.
-            Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+            // DriverManager gets JDBC Driver from libs automatically. (when the pool creates a new connection)
+            Connection connection = pool.getConnection();
             log.info("[DBConnectionUtil] success to get connection: connection=[{}], class=[{}]", connection, connection.getClass());
             return connection;
         } catch (SQLException e) {
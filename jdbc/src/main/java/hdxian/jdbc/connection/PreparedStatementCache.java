@@ -0,0 +1,128 @@
+package hdxian.jdbc.connection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * (커넥션, SQL) 단위 PreparedStatement 캐시 - DataSourceUtils를 사용하는 리포지토리(V3, V4_x)용
+ * 트랜잭션 동안 같은 커넥션에서 같은 SQL을 다시 실행하면 prepareStatement() 없이 재사용한다.
+ * (ex. 이체 한 번에 update member set money ... 2번)
+ *
+ * - 트랜잭션에 묶인 커넥션만 캐시. 트랜잭션 밖의 커넥션은 사용 직후 releaseConnection()으로 닫히므로 캐시할 이유가 없음
+ * - 커넥션마다 LRU (maxStatementsPerConnection 초과 시 가장 오래 안 쓴 pstmt를 닫음)
+ * - 트랜잭션 완료(afterCompletion) 시 해당 커넥션의 pstmt를 모두 닫음
+ *   -> 트랜잭션 매니저가 DataSourceUtils.releaseConnection()으로 커넥션을 풀에 돌려주기 직전
+ */
+@Slf4j
+public class PreparedStatementCache {
+
+    private final int maxStatementsPerConnection;
+    private final Map<Connection, LinkedHashMap<String, PreparedStatement>> caches = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public PreparedStatementCache(int maxStatementsPerConnection) {
+        if (maxStatementsPerConnection < 1) {
+            throw new IllegalArgumentException("maxStatementsPerConnection must be positive: " + maxStatementsPerConnection);
+        }
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    public PreparedStatement prepareStatement(Connection con, String sql, DataSource dataSource) throws SQLException {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !DataSourceUtils.isConnectionTransactional(con, dataSource)) {
+            return con.prepareStatement(sql);
+        }
+
+        LinkedHashMap<String, PreparedStatement> statements = caches.get(con);
+        if (statements == null) {
+            statements = newLruMap();
+            caches.put(con, statements);
+            // 트랜잭션이 끝나면(커밋, 롤백 모두) 이 커넥션의 pstmt 정리
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear(con);
+                }
+            });
+        }
+
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt != null && !pstmt.isClosed()) {
+            hitCount.increment();
+            pstmt.clearParameters();
+            return pstmt;
+        }
+
+        missCount.increment();
+        pstmt = con.prepareStatement(sql);
+        statements.put(sql, pstmt);
+        return pstmt;
+    }
+
+    // 리포지토리의 close()에서 JdbcUtils.closeStatement() 대신 호출. 캐시된 pstmt는 닫지 않음
+    public void closeStatement(Connection con, Statement st) {
+        if (st == null) {
+            return;
+        }
+
+        LinkedHashMap<String, PreparedStatement> statements = con != null ? caches.get(con) : null;
+        if (statements != null && statements.containsValue(st)) {
+            return;
+        }
+        JdbcUtils.closeStatement(st);
+    }
+
+    public void clear(Connection con) {
+        LinkedHashMap<String, PreparedStatement> statements = caches.remove(con);
+        if (statements == null) {
+            return;
+        }
+
+        log.info("[PreparedStatementCache] clear statements={}, connection={}", statements.size(), con);
+        for (PreparedStatement pstmt : statements.values()) {
+            JdbcUtils.closeStatement(pstmt);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int getCachedConnectionCount() {
+        return caches.size();
+    }
+
+    // access order LinkedHashMap -> 초과 시 가장 오래 사용되지 않은 pstmt 제거
+    private LinkedHashMap<String, PreparedStatement> newLruMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maxStatementsPerConnection) {
+                    JdbcUtils.closeStatement(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+}
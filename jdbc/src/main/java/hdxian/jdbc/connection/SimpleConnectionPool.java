@@ -0,0 +1,376 @@
+package hdxian.jdbc.connection;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.sql.Wrapper;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DriverManager 기반의 작은 커넥션 풀 (DBConnectionUtil 용)
+ * - 최대 커넥션 수 제한, 빌려줄 커넥션이 없으면 maxWait 동안 대기 후 SQLTimeoutException
+ * - 빌려줄 때 검증 (최근에 반납된 커넥션은 검증 생략)
+ * - idleTimeout 동안 사용되지 않은 커넥션은 백그라운드에서 정리
+ * getConnection()은 프록시 커넥션을 리턴하고, 프록시의 close()는 물리 커넥션을 닫지 않고 풀에 반납한다.
+ */
+@Slf4j
+public class SimpleConnectionPool implements AutoCloseable {
+
+    // 반납된 지 이 시간 이내인 커넥션은 검증(isValid) 생략 - 검증도 DB 왕복이므로
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutNanos;
+
+    private final Semaphore permits; // 빌려간 커넥션 수 + 새로 만들 수 있는 커넥션 수 = maxSize
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>(); // first: 가장 최근에 반납된 커넥션
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public SimpleConnectionPool(String url, String username, String password,
+                                int maxSize, long maxWaitMillis, long idleTimeoutMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: maxSize=" + maxSize);
+        }
+
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "SimpleConnectionPool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleTimeoutMillis / 2, 1000);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("connection pool is closed");
+        }
+
+        acquirePermit();
+        try {
+            Connection physical = borrowIdle();
+            if (physical == null) {
+                physical = newConnection();
+                log.info("[SimpleConnectionPool] new connection={}", physical);
+            }
+            return pooled(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+
+        IdleConnection entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closeQuietly(entry.connection);
+        }
+    }
+
+    // 새 물리 커넥션 생성
+    protected Connection newConnection() throws SQLException {
+        return DriverManager.getConnection(url, username, password);
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("connection is not available, request timed out after " + maxWaitMillis + "ms (maxSize=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a connection", e);
+        }
+    }
+
+    // 가장 최근에 반납된 커넥션부터 사용 (LIFO -> 오래 쉰 커넥션은 자연스럽게 idleTimeout으로 정리됨)
+    private Connection borrowIdle() {
+        IdleConnection entry;
+        while ((entry = idle.pollFirst()) != null) {
+            long idleNanos = System.nanoTime() - entry.returnedAt;
+
+            if (idleNanos > idleTimeoutNanos) {
+                closeQuietly(entry.connection);
+                continue;
+            }
+            if (idleNanos > VALIDATION_BYPASS_NANOS && !isValid(entry.connection)) {
+                log.info("[SimpleConnectionPool] discard invalid connection={}", entry.connection);
+                closeQuietly(entry.connection);
+                continue;
+            }
+            return entry.connection;
+        }
+        return null;
+    }
+
+    // 프록시 커넥션의 close()에서 호출
+    private void release(Connection physical) {
+        try {
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            // 트랜잭션 도중에 반납된 경우 다음 사용자에게 넘어가지 않도록 롤백 후 auto commit 복구
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            IdleConnection entry = new IdleConnection(physical, System.nanoTime());
+            idle.offerFirst(entry);
+            // 위의 closed 확인 후 반납 전에 close()가 idle을 이미 비웠으면 여기서 닫음
+            // (close()가 먼저 closed를 쓰고 idle을 비우므로, 반납 후 closed가 false면 close()의 정리에서 이 커넥션이 보임)
+            if (closed && idle.removeFirstOccurrence(entry)) {
+                closeQuietly(physical);
+            }
+        } catch (SQLException e) {
+            log.error("[SimpleConnectionPool.release] discard broken connection", e);
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        // 오래된 커넥션은 deque의 뒤쪽에 있음
+        Iterator<IdleConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            IdleConnection entry = it.next();
+            if (now - entry.returnedAt <= idleTimeoutNanos) {
+                break;
+            }
+            if (idle.removeFirstOccurrence(entry)) { // 동시에 빌려간 경우 제외
+                log.info("[SimpleConnectionPool] evict idle connection={}", entry.connection);
+                closeQuietly(entry.connection);
+            }
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("[SimpleConnectionPool.closeQuietly] SQL ex occurs", e);
+        }
+    }
+
+    private Connection pooled(Connection physical) {
+        PooledConnectionHandler handler = new PooledConnectionHandler(physical);
+        handler.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+        return handler.proxy;
+    }
+
+    private record IdleConnection(Connection connection, long returnedAt) {
+    }
+
+    /**
+     * 빌려준 커넥션의 프록시
+     * close() -> 이 커넥션으로 만든 Statement 중 아직 열린 것을 정리하고 물리 커넥션을 풀에 반납
+     * 반납 후의 호출은 SQLException (이미 다른 사용자가 쓰고 있을 수 있음)
+     * 물리 커넥션은 밖으로 꺼내지 않음: unwrap()은 프록시 자신만, Statement/ResultSet/DatabaseMetaData도 프록시로 감싸서
+     * getConnection(), getStatement()가 프록시를 돌려줌 (물리 커넥션을 직접 닫으면 풀을 우회함)
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+
+        private final Connection physical;
+        private final Set<JdbcObjectHandler> statements = new HashSet<>(); // 열린 Statement만 (close()하면 제거)
+        private Connection proxy;
+        private boolean returned;
+
+        PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        closeStatements();
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("connection is already returned to the pool");
+            }
+            if (isWrapperMethod(method)) {
+                return invokeWrapper(proxy, method, args);
+            }
+
+            Object result = invokeTarget(physical, method, args);
+            if (result instanceof Statement) { // createStatement, prepareStatement, prepareCall
+                JdbcObjectHandler handler = new JdbcObjectHandler(result, this, null);
+                statements.add(handler);
+                return handler.proxy(method.getReturnType());
+            }
+            if (result instanceof DatabaseMetaData) {
+                return new JdbcObjectHandler(result, this, null).proxy(DatabaseMetaData.class);
+            }
+            return result;
+        }
+
+        // 닫히지 않은 Statement가 물리 커넥션에 남아 다음 사용자에게 넘어가지 않도록 정리
+        private void closeStatements() {
+            for (JdbcObjectHandler statement : statements) {
+                try {
+                    ((Statement) statement.target).close();
+                } catch (SQLException e) {
+                    log.error("[SimpleConnectionPool.closeStatements] SQL ex occurs", e);
+                }
+            }
+            statements.clear();
+        }
+
+    }
+
+    /**
+     * 빌려준 커넥션에서 나온 Statement, ResultSet, DatabaseMetaData의 프록시
+     * - getConnection() -> 커넥션 프록시, getStatement() -> Statement 프록시
+     * - Statement의 close() -> 커넥션의 열린 Statement 목록에서 제거 (오래 빌린 커넥션에서 목록이 계속 커지지 않음)
+     * - 이 객체가 돌려주는 ResultSet도 같은 방식으로 감쌈
+     */
+    private static class JdbcObjectHandler implements InvocationHandler {
+
+        private final Object target;
+        private final PooledConnectionHandler connection;
+        private final Object statementProxy; // ResultSet.getStatement()의 결과 (Statement에서 나온 ResultSet이 아니면 null)
+        private Object proxy;
+
+        JdbcObjectHandler(Object target, PooledConnectionHandler connection, Object statementProxy) {
+            this.target = target;
+            this.connection = connection;
+            this.statementProxy = statementProxy;
+        }
+
+        Object proxy(Class<?> type) {
+            proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, this);
+            return proxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection.proxy;
+                case "getStatement":
+                    if (target instanceof ResultSet) {
+                        return statementProxy;
+                    }
+                    break;
+                case "close":
+                    if (target instanceof Statement) {
+                        connection.statements.remove(this);
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + target + "]";
+                default:
+                    break;
+            }
+            if (isWrapperMethod(method)) {
+                return invokeWrapper(proxy, method, args);
+            }
+
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof ResultSet) { // executeQuery, getResultSet, getGeneratedKeys, DatabaseMetaData 조회
+                return new JdbcObjectHandler(result, connection, target instanceof Statement ? proxy : null).proxy(ResultSet.class);
+            }
+            return result;
+        }
+
+    }
+
+    private static boolean isWrapperMethod(Method method) {
+        return method.getDeclaringClass() == Wrapper.class;
+    }
+
+    // unwrap(), isWrapperFor(): 프록시가 구현한 인터페이스만 허용 (드라이버 구현 객체는 꺼내지 않음)
+    private static Object invokeWrapper(Object proxy, Method method, Object[] args) throws SQLException {
+        Class<?> iface = (Class<?>) args[0];
+        if (method.getName().equals("isWrapperFor")) {
+            return iface.isInstance(proxy);
+        }
+        if (iface.isInstance(proxy)) {
+            return proxy;
+        }
+        throw new SQLException("cannot unwrap pooled object to " + iface.getName());
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -8,6 +8,7 @@ public class Member {
 
     private String memberId;
     private int money;
+    private int version; // 낙관적 락 (변경할 때마다 1 증가)
 
     public Member() {
     }
@@ -17,4 +18,10 @@ public class Member {
         this.money = money;
     }
 
+    public Member(String memberId, int money, int version) {
+        this.memberId = memberId;
+        this.money = money;
+        this.version = version;
+    }
+
 }
@@ -0,0 +1,237 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 없는 id 조회를 DB까지 보내지 않는 MemberRepository 데코레이터
+ * create()에서 member 테이블의 id를 한 번 훑어 블룸 필터를 만들고, 이후 save/saveAll로 추가되는 id를 반영한다.
+ * - delegate가 MemberRepositoryV5면 streamIds() 쿼리 하나를 fetchSize 단위로 읽음, 그 외에는 키셋 페이지(findPage)로 반복 조회
+ * - 생성자는 DB를 읽지 않음 (테이블 전체를 읽는 시점을 호출하는 쪽이 정하도록 create()로 분리)
+ * - 블룸 필터에 없는 id -> 확실히 없는 회원: findOptionalById, existsById, findByIds가 DB 조회 없이 바로 리턴
+ * - 블룸 필터에 있는 id -> delegate로 조회
+ * - findById는 항상 delegate로 조회 (없을 때의 예외 타입이 구현마다 다르므로 delegate가 던지게 함. 미스가 잦은 경로는 findOptionalById)
+ *
+ * 주의
+ * - 회원 추가가 모두 이 데코레이터를 거쳐야 한다. (다른 경로로 insert된 id는 rebuild() 전까지 없는 것으로 보임)
+ * - delete는 블룸 필터에서 지울 수 없으므로 삭제 수만 기록. 삭제가 쌓이면 false positive가 늘어나므로 rebuild()
+ * - 롤백된 save의 id는 필터에 남음 -> false positive가 될 뿐 잘못된 결과는 아님
+ *
+ * 필터에 없는 id는 반드시 없는 회원이어야 함 (false negative 금지)
+ * save는 커밋 전에 필터에 넣고(같은 트랜잭션에서 바로 조회), 트랜잭션 안이면 커밋 후(afterCommit)에 한 번 더 넣는다.
+ * -> 커밋 전에 시작된 rebuild()의 조회가 아직 커밋되지 않은 행을 못 봐도, 커밋 시점에 rebuild 중인 새 필터(또는 교체된 필터)에 들어감
+ */
+@Slf4j
+public class BloomFilterMemberRepository extends ForwardingMemberRepository {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final Supplier<Stream<String>> memberIds; // rebuild()에서 읽을 전체 id (Stream은 rebuild()가 닫음)
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile MemberIdBloomFilter filter;
+    private volatile MemberIdBloomFilter rebuilding; // rebuild() 중에 추가(커밋)된 id도 새 필터에 반영하기 위함
+
+    private final LongAdder definiteMissCount = new LongAdder(); // DB 조회 없이 리턴한 수
+    private final LongAdder falsePositiveCount = new LongAdder(); // 필터는 있다고 했지만 DB에 없던 수
+    private final LongAdder deletedSinceBuild = new LongAdder();
+
+    private BloomFilterMemberRepository(MemberRepository delegate, Supplier<Stream<String>> memberIds,
+                                        int expectedInsertions, double falsePositiveRate) {
+        super(delegate);
+        this.memberIds = memberIds;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    // 첫 rebuild()까지 마친 데코레이터를 리턴 (member 테이블 전체를 읽음)
+    public static BloomFilterMemberRepository create(MemberRepository delegate, int expectedInsertions, double falsePositiveRate) {
+        Supplier<Stream<String>> memberIds = delegate instanceof MemberRepositoryV5 v5
+                ? v5::streamIds
+                : () -> pagedMemberIds(delegate);
+        BloomFilterMemberRepository repository =
+                new BloomFilterMemberRepository(delegate, memberIds, expectedInsertions, falsePositiveRate);
+        repository.rebuild();
+        return repository;
+    }
+
+    // member 테이블 전체를 다시 읽어 필터를 새로 만듦 (조회 중에 추가되는 id도 새 필터에 반영)
+    public synchronized void rebuild() {
+        MemberIdBloomFilter next = new MemberIdBloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = next;
+        try {
+            try (Stream<String> ids = memberIds.get()) {
+                ids.forEach(next::put);
+            }
+
+            filter = next;
+            deletedSinceBuild.reset();
+            log.info("[BloomFilterMemberRepository.rebuild] ids={}, bits={}, hashes={}",
+                    next.getInsertionCount(), next.getBitSize(), next.getHashCount());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    @Override
+    public Member findById(String memberId) {
+        boolean mightContain = filter.mightContain(memberId);
+        try {
+            return delegate.findById(memberId);
+        } catch (EmptyResultDataAccessException | NoSuchElementException e) {
+            if (mightContain) {
+                falsePositiveCount.increment();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Member> findOptionalById(String memberId) {
+        if (!mightContain(memberId)) {
+            return Optional.empty();
+        }
+
+        Optional<Member> member = delegate.findOptionalById(memberId);
+        if (member.isEmpty()) {
+            falsePositiveCount.increment();
+        }
+        return member;
+    }
+
+    @Override
+    public boolean existsById(String memberId) {
+        if (!mightContain(memberId)) {
+            return false;
+        }
+
+        boolean exists = delegate.existsById(memberId);
+        if (!exists) {
+            falsePositiveCount.increment();
+        }
+        return exists;
+    }
+
+    @Override
+    public Map<String, Member> findByIds(Collection<String> memberIds) {
+        List<String> candidates = new ArrayList<>(memberIds.size());
+        for (String memberId : memberIds) {
+            if (memberId != null && mightContain(memberId)) {
+                candidates.add(memberId);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new HashMap<>();
+        }
+        return delegate.findByIds(candidates);
+    }
+
+    @Override
+    public Member save(Member member) {
+        Member saved = delegate.save(member);
+        putAndAfterCommit(member.getMemberId());
+        return saved;
+    }
+
+    @Override
+    public List<SaveResult> saveAll(Collection<Member> members) {
+        List<SaveResult> results = delegate.saveAll(members);
+        for (SaveResult result : results) {
+            if (result.isSuccess()) {
+                putAndAfterCommit(result.getMember().getMemberId());
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void delete(String memberId) {
+        delegate.delete(memberId);
+        deletedSinceBuild.increment();
+    }
+
+    public long getDefiniteMissCount() {
+        return definiteMissCount.sum();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositiveCount.sum();
+    }
+
+    public long getDeletedSinceBuild() {
+        return deletedSinceBuild.sum();
+    }
+
+    public double getConfiguredFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    // 현재 필터에 들어간 id 수 기준 예상 false positive 비율
+    public double getExpectedFalsePositiveRate() {
+        return filter.getExpectedFalsePositiveRate();
+    }
+
+    public long getMemoryBytes() {
+        return filter.getMemoryBytes();
+    }
+
+    // 스트리밍 조회가 없는 delegate: 키셋 페이지를 차례로 조회 (다음 페이지는 앞 페이지를 다 읽은 뒤 조회)
+    private static Stream<String> pagedMemberIds(MemberRepository delegate) {
+        return Stream.iterate(delegate.findPage(null, REBUILD_PAGE_SIZE),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < REBUILD_PAGE_SIZE
+                                ? List.of()
+                                : delegate.findPage(page.get(page.size() - 1).getMemberId(), REBUILD_PAGE_SIZE))
+                .flatMap(List::stream)
+                .map(Member::getMemberId);
+    }
+
+    private boolean mightContain(String memberId) {
+        if (filter.mightContain(memberId)) {
+            return true;
+        }
+        definiteMissCount.increment();
+        return false;
+    }
+
+    // 트랜잭션 밖이면 delegate.save()가 이미 커밋됨
+    private void putAndAfterCommit(String memberId) {
+        put(memberId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(memberId);
+                }
+            });
+        }
+    }
+
+    private void put(String memberId) {
+        MemberIdBloomFilter current = filter;
+        current.put(memberId);
+        MemberIdBloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(memberId);
+        }
+        if (filter != current) { // 그 사이 rebuild()가 필터를 교체한 경우
+            filter.put(memberId);
+        }
+    }
+
+}
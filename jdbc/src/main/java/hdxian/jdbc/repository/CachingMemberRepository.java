@@ -0,0 +1,287 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.cache.MemberCacheStore;
+import hdxian.jdbc.repository.cache.OnHeapMemberCacheStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * findById(), findOptionalById(), existsById(), findByIds() 결과를 캐시하는 MemberRepository 데코레이터 (read-through)
+ * - 크기 제한, TTL, 제거 정책은 저장소(MemberCacheStore)가 담당: OnHeapMemberCacheStore(기본), OffHeapMemberCacheStore
+ * - save, saveAll, update, withdraw, deposit, delete 시 해당 회원을 캐시에서 제거
+ *
+ * 트랜잭션 고려
+ * - 트랜잭션 안(DataSourceUtils로 커넥션이 바인딩된 상태)의 조회는 캐시를 거치지 않음
+ *   -> 커밋되지 않은 값이 캐시에 들어가 다른 트랜잭션에 보이는 일이 없음
+ * - 트랜잭션 안의 변경은 즉시 제거 + 트랜잭션 완료(afterCompletion) 후 한 번 더 제거
+ *   -> 커밋 전에 다른 스레드가 이전 값을 다시 캐시에 넣어도 커밋 후에 정리됨
+ * - 조회 시작 이후에 그 회원의 제거가 있었다면 조회 결과를 캐시에 넣지 않음 (generation 비교)
+ *   generation은 id의 해시로 나눈 칸(GENERATION_STRIPES개)마다 따로 셈 -> 다른 회원의 변경은 (같은 칸이 아니면) 조회 결과를 버리지 않음
+ *   회원마다 카운터를 두지 않으므로 메모리는 일정
+ */
+@Slf4j
+public class CachingMemberRepository extends ForwardingMemberRepository {
+
+    private final DataSource dataSource;
+    private final MemberCacheStore store;
+    private static final int GENERATION_STRIPES = 1024; // 2의 거듭제곱
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES); // 칸의 회원을 제거할 때마다 증가
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    // 힙 캐시 (LRU + TTL)
+    public CachingMemberRepository(MemberRepository delegate, DataSource dataSource, int maxSize, long ttlMillis) {
+        this(delegate, dataSource, new OnHeapMemberCacheStore(maxSize, ttlMillis));
+    }
+
+    // 저장소 지정 (ex. OffHeapMemberCacheStore)
+    public CachingMemberRepository(MemberRepository delegate, DataSource dataSource, MemberCacheStore store) {
+        super(delegate);
+        this.dataSource = dataSource;
+        this.store = store;
+    }
+
+    @Override
+    public Member findById(String memberId) {
+        if (inTransaction()) {
+            return delegate.findById(memberId);
+        }
+
+        Member cached = getIfPresent(memberId);
+        if (cached != null) {
+            hitCount.increment();
+            return cached;
+        }
+
+        missCount.increment();
+        long startGeneration = generation(memberId);
+        Member member = delegate.findById(memberId);
+        putIfNotInvalidated(member, startGeneration);
+        return member;
+    }
+
+    @Override
+    public Optional<Member> findOptionalById(String memberId) {
+        if (inTransaction()) {
+            return delegate.findOptionalById(memberId);
+        }
+
+        Member cached = getIfPresent(memberId);
+        if (cached != null) {
+            hitCount.increment();
+            return Optional.of(cached);
+        }
+
+        missCount.increment();
+        long startGeneration = generation(memberId);
+        Optional<Member> member = delegate.findOptionalById(memberId);
+        member.ifPresent(m -> putIfNotInvalidated(m, startGeneration)); // 없는 회원은 캐시하지 않음
+        return member;
+    }
+
+    @Override
+    public boolean existsById(String memberId) {
+        return findOptionalById(memberId).isPresent();
+    }
+
+    // 캐시에 없는 id만 모아 delegate.findByIds() 한 번으로 조회
+    @Override
+    public Map<String, Member> findByIds(Collection<String> memberIds) {
+        if (inTransaction()) {
+            return delegate.findByIds(memberIds);
+        }
+
+        Map<String, Member> members = new HashMap<>();
+        Set<String> missed = new LinkedHashSet<>();
+        for (String memberId : memberIds) {
+            if (memberId == null || members.containsKey(memberId) || missed.contains(memberId)) {
+                continue;
+            }
+            Member cached = getIfPresent(memberId);
+            if (cached != null) {
+                hitCount.increment();
+                members.put(memberId, cached);
+            } else {
+                missCount.increment();
+                missed.add(memberId);
+            }
+        }
+
+        if (!missed.isEmpty()) {
+            Map<String, Long> startGenerations = new HashMap<>();
+            for (String memberId : missed) {
+                startGenerations.put(memberId, generation(memberId));
+            }
+            Map<String, Member> found = delegate.findByIds(missed);
+            for (Member member : found.values()) {
+                putIfNotInvalidated(member, startGenerations.get(member.getMemberId()));
+            }
+            members.putAll(found);
+        }
+        return members;
+    }
+
+    @Override
+    public Member save(Member member) {
+        try {
+            return delegate.save(member);
+        } finally {
+            invalidate(member.getMemberId());
+        }
+    }
+
+    @Override
+    public List<SaveResult> saveAll(Collection<Member> members) {
+        try {
+            return delegate.saveAll(members);
+        } finally {
+            for (Member member : members) {
+                invalidate(member.getMemberId());
+            }
+        }
+    }
+
+    @Override
+    public void update(String memberId, int money) {
+        try {
+            delegate.update(memberId, money);
+        } finally {
+            invalidate(memberId);
+        }
+    }
+
+    @Override
+    public void update(String memberId, int money, int version) {
+        try {
+            delegate.update(memberId, money, version);
+        } finally {
+            invalidate(memberId); // 실패(version 불일치)해도 캐시가 오래된 값일 수 있으므로 제거
+        }
+    }
+
+    @Override
+    public Member withdraw(String memberId, int amount) {
+        try {
+            return delegate.withdraw(memberId, amount);
+        } finally {
+            invalidate(memberId);
+        }
+    }
+
+    @Override
+    public Member deposit(String memberId, int amount) {
+        try {
+            return delegate.deposit(memberId, amount);
+        } finally {
+            invalidate(memberId);
+        }
+    }
+
+    @Override
+    public void applyDeltas(Map<String, Integer> deltas) {
+        try {
+            delegate.applyDeltas(deltas);
+        } finally {
+            for (String memberId : deltas.keySet()) {
+                invalidate(memberId);
+            }
+        }
+    }
+
+    @Override
+    public void delete(String memberId) {
+        try {
+            delegate.delete(memberId);
+        } finally {
+            invalidate(memberId);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return store.getEvictionCount();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        store.clear();
+    }
+
+    // 트랜잭션 동기화 중이거나, 이 DataSource의 커넥션이 스레드에 바인딩되어 있으면 트랜잭션 안으로 봄
+    private boolean inTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(dataSource);
+    }
+
+    // 저장소가 꺼낼 때마다 새 Member를 만들어 줌
+    private Member getIfPresent(String memberId) {
+        return store.get(memberId);
+    }
+
+    private synchronized void putIfNotInvalidated(Member member, long startGeneration) {
+        // 조회하는 동안 이 회원(과 같은 칸)의 제거가 있었다면 member가 이미 오래된 값일 수 있음
+        if (generation(member.getMemberId()) != startGeneration) {
+            return;
+        }
+        store.put(member);
+    }
+
+    private void invalidate(String memberId) {
+        evict(memberId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 커밋(또는 롤백) 전에 다른 스레드가 이전 값을 캐시에 넣었을 수 있으므로 완료 후 다시 제거
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(memberId);
+                }
+            });
+        }
+    }
+
+    private synchronized void evict(String memberId) {
+        generations.incrementAndGet(stripe(memberId));
+        if (store.remove(memberId)) {
+            log.info("[CachingMemberRepository.evict] memberId={}", memberId);
+        }
+    }
+
+    private long generation(String memberId) {
+        return generations.get(stripe(memberId));
+    }
+
+    private static int stripe(String memberId) {
+        int h = memberId.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+}
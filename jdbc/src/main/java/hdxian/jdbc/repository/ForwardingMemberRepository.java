@@ -0,0 +1,92 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * MemberRepository 데코레이터의 기반 클래스
+ * 모든 메서드를 delegate에 그대로 위임한다. 하위 클래스는 필요한 메서드만 오버라이드
+ */
+public abstract class ForwardingMemberRepository implements MemberRepository {
+
+    protected final MemberRepository delegate;
+
+    protected ForwardingMemberRepository(MemberRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Member save(Member member) {
+        return delegate.save(member);
+    }
+
+    @Override
+    public List<SaveResult> saveAll(Collection<Member> members) {
+        return delegate.saveAll(members);
+    }
+
+    @Override
+    public Member findById(String memberId) {
+        return delegate.findById(memberId);
+    }
+
+    @Override
+    public Optional<Member> findOptionalById(String memberId) {
+        return delegate.findOptionalById(memberId);
+    }
+
+    @Override
+    public boolean existsById(String memberId) {
+        return delegate.existsById(memberId);
+    }
+
+    @Override
+    public Member findByIdForUpdate(String memberId) {
+        return delegate.findByIdForUpdate(memberId);
+    }
+
+    @Override
+    public Map<String, Member> findByIds(Collection<String> memberIds) {
+        return delegate.findByIds(memberIds);
+    }
+
+    @Override
+    public List<Member> findPage(String afterMemberId, Integer minMoney, int limit) {
+        return delegate.findPage(afterMemberId, minMoney, limit);
+    }
+
+    @Override
+    public void update(String memberId, int money) {
+        delegate.update(memberId, money);
+    }
+
+    @Override
+    public void update(String memberId, int money, int version) {
+        delegate.update(memberId, money, version);
+    }
+
+    @Override
+    public Member withdraw(String memberId, int amount) {
+        return delegate.withdraw(memberId, amount);
+    }
+
+    @Override
+    public Member deposit(String memberId, int amount) {
+        return delegate.deposit(memberId, amount);
+    }
+
+    @Override
+    public void applyDeltas(Map<String, Integer> deltas) {
+        delegate.applyDeltas(deltas);
+    }
+
+    @Override
+    public void delete(String memberId) {
+        delegate.delete(memberId);
+    }
+
+}
@@ -0,0 +1,127 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * saveAll(), findByIds(), applyDeltas() 공통 처리 - 청크 분할, JDBC 배치 실행, 행 단위 결과 변환
+ * 커넥션/PreparedStatement 관리는 각 리포지토리가 담당한다.
+ */
+abstract class MemberBatchSupport {
+
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
+    static final String INSERT_SQL = "insert into member(member_id, money) values (?, ?)"; // version은 기본값(0)
+
+    // findByIds() 쿼리 한 번에 넘길 id 수
+    static final int ID_CHUNK_SIZE = 500;
+
+    // 배열 파라미터 하나로 여러 id를 조회 -> id 수와 관계없이 같은 SQL (IN 리스트는 id 수마다 SQL이 달라짐)
+    static final String FIND_BY_IDS_SQL = "select * from member where member_id = any(?)";
+
+    // 상대값 변경 + 잔액 검사를 update문 하나로 (withdraw()와 같은 방식). 조건을 만족하지 못하면 변경된 행이 없음
+    static final String APPLY_DELTA_SQL = "update member set money = money + ?, version = version + 1 where member_id = ? and money + ? >= 0";
+
+    static <T> List<List<T>> chunks(Collection<T> items, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: batchSize=" + batchSize);
+        }
+
+        List<T> list = new ArrayList<>(items);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += batchSize) {
+            chunks.add(list.subList(from, Math.min(from + batchSize, list.size())));
+        }
+        return chunks;
+    }
+
+    // 중복, null을 제거한 id 청크 목록
+    static List<List<String>> idChunks(Collection<String> memberIds) {
+        Set<String> distinct = new LinkedHashSet<>(memberIds.size());
+        for (String memberId : memberIds) {
+            if (memberId != null) {
+                distinct.add(memberId);
+            }
+        }
+        return chunks(distinct, ID_CHUNK_SIZE);
+    }
+
+    // chunk 하나를 배치로 실행하고 행 단위 결과를 리턴 (translator: SQLException -> 런타임 예외)
+    static List<SaveResult> executeBatch(PreparedStatement pstmt, List<Member> chunk,
+                                         Function<SQLException, RuntimeException> translator) throws SQLException {
+        for (Member member : chunk) {
+            pstmt.setString(1, member.getMemberId());
+            pstmt.setInt(2, member.getMoney());
+            pstmt.addBatch();
+        }
+
+        try {
+            int[] updateCounts = pstmt.executeBatch();
+            return toResults(chunk, updateCounts, null, translator);
+        } catch (BatchUpdateException e) {
+            // 실패한 행은 EXECUTE_FAILED, 행별 원인은 getNextException()으로 순서대로 연결되어 있음 (H2)
+            return toResults(chunk, e.getUpdateCounts(), e, translator);
+        } finally {
+            pstmt.clearBatch();
+        }
+    }
+
+    // applyDeltas()의 chunk 하나를 배치로 실행하고 변경되지 않은 행(잔액이 음수가 되거나 회원이 없음)의 member_id를 리턴
+    static List<String> executeDeltaBatch(PreparedStatement pstmt, List<Map.Entry<String, Integer>> chunk) throws SQLException {
+        for (Map.Entry<String, Integer> delta : chunk) {
+            pstmt.setInt(1, delta.getValue());
+            pstmt.setString(2, delta.getKey());
+            pstmt.setInt(3, delta.getValue());
+            pstmt.addBatch();
+        }
+
+        try {
+            int[] updateCounts = pstmt.executeBatch();
+            List<String> rejected = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                if (updateCounts[i] == 0) { // SUCCESS_NO_INFO(-2)는 변경된 것으로 봄
+                    rejected.add(chunk.get(i).getKey());
+                }
+            }
+            return rejected;
+        } finally {
+            pstmt.clearBatch();
+        }
+    }
+
+    private static List<SaveResult> toResults(List<Member> chunk, int[] updateCounts, BatchUpdateException batchEx,
+                                              Function<SQLException, RuntimeException> translator) {
+        List<SaveResult> results = new ArrayList<>(chunk.size());
+        SQLException rowEx = batchEx != null ? batchEx.getNextException() : null;
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Member member = chunk.get(i);
+
+            if (updateCounts != null && i < updateCounts.length && updateCounts[i] != Statement.EXECUTE_FAILED) {
+                results.add(SaveResult.success(member));
+                continue;
+            }
+
+            // 드라이버가 행별 원인을 주지 않았거나, 첫 실패에서 배치를 중단한 경우엔 배치 예외 자체로 변환
+            SQLException cause = rowEx != null ? rowEx : batchEx;
+            results.add(SaveResult.failure(member, translator.apply(cause)));
+            if (rowEx != null) {
+                rowEx = rowEx.getNextException();
+            }
+        }
+
+        return results;
+    }
+
+}
@@ -0,0 +1,122 @@
+package hdxian.jdbc.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * member_id 블룸 필터 (thread-safe)
+ * mightContain()이 false면 확실히 없는 id, true면 있을 수도 있는 id (false positive 가능, false negative 없음)
+ * 삭제는 지원하지 않음 -> 삭제된 id는 다시 만들기 전까지 "있을 수도 있음"으로 남는다.
+ *
+ * 크기: 비트 수 m = -n * ln(p) / (ln 2)^2, 해시 함수 수 k = m / n * ln 2
+ * 해시: id 하나로 64비트 해시를 한 번 계산하고 두 32비트 값으로 k개의 위치를 만듦 (double hashing)
+ */
+public class MemberIdBloomFilter {
+
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLongArray bits;
+    private final LongAdder insertions = new LongAdder();
+
+    public MemberIdBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: expectedInsertions=" + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): falsePositiveRate=" + falsePositiveRate);
+        }
+
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bitSize = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray(words);
+    }
+
+    public void put(String memberId) {
+        long hash = hash(memberId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            long mask = 1L << index; // shift는 하위 6비트만 사용
+            int word = (int) (index >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (prev, m) -> prev | m);
+            }
+        }
+        insertions.increment();
+    }
+
+    public boolean mightContain(String memberId) {
+        long hash = hash(memberId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    // 설정한 false positive 비율 (expectedInsertions 개를 넣었을 때의 목표치)
+    public double getConfiguredFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    // 지금까지 put()한 수 기준 예상 false positive 비율: (1 - e^(-kn/m))^k
+    public double getExpectedFalsePositiveRate() {
+        double n = insertions.sum();
+        return Math.pow(1 - Math.exp(-hashCount * n / bitSize), hashCount);
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public long getInsertionCount() {
+        return insertions.sum();
+    }
+
+    // 비트 배열 크기 (객체 헤더 제외)
+    public long getMemoryBytes() {
+        return bitSize / 8;
+    }
+
+    private long index(int combinedHash) {
+        // 음수면 비트 반전 -> 0 이상
+        int positive = combinedHash < 0 ? ~combinedHash : combinedHash;
+        return positive % bitSize;
+    }
+
+    // FNV-1a(UTF-8 바이트) + murmur3 fmix64로 비트를 섞음
+    private static long hash(String memberId) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : memberId.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
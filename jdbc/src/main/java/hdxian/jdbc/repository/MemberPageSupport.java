@@ -0,0 +1,46 @@
+package hdxian.jdbc.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * findPage() 공통 처리 - 키셋(keyset) 페이지 쿼리 생성
+ * where member_id > (이전 페이지의 마지막 id) order by member_id limit n
+ * -> PK 인덱스에서 바로 시작 위치를 찾으므로 페이지가 깊어져도 비용이 같음 (offset은 앞의 행을 모두 읽고 버림)
+ */
+abstract class MemberPageSupport {
+
+    // afterMemberId, minMoney가 null이면 해당 조건을 뺀 쿼리
+    static String sql(String afterMemberId, Integer minMoney) {
+        StringBuilder sql = new StringBuilder("select * from member");
+        List<String> conditions = new ArrayList<>(2);
+        if (afterMemberId != null) {
+            conditions.add("member_id > ?");
+        }
+        if (minMoney != null) {
+            conditions.add("money >= ?");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" where ").append(String.join(" and ", conditions));
+        }
+        return sql.append(" order by member_id limit ?").toString();
+    }
+
+    // sql()의 ? 순서대로 바인딩할 파라미터
+    static Object[] params(String afterMemberId, Integer minMoney, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: limit=" + limit);
+        }
+
+        List<Object> params = new ArrayList<>(3);
+        if (afterMemberId != null) {
+            params.add(afterMemberId);
+        }
+        if (minMoney != null) {
+            params.add(minMoney);
+        }
+        params.add(limit);
+        return params.toArray();
+    }
+
+}
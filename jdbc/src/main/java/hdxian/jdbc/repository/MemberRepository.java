@@ -3,14 +3,60 @@ package hdxian.jdbc.repository;
 import hdxian.jdbc.domain.Member;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 
 public interface MemberRepository {
     public Member save(Member member);
 
+    // JDBC 배치로 여러 건 저장. 실패한 행이 있어도 나머지는 계속 저장하고, 행 단위 결과를 입력 순서대로 리턴
+    public List<SaveResult> saveAll(Collection<Member> members);
+
     public Member findById(String memberId);
 
+    // 없으면 빈 Optional. findById()와 달리 예외를 만들지 않음 -> 예외 생성, 스택 트레이스 수집 비용 없음 (없는 id를 자주 조회하는 경로용)
+    public Optional<Member> findOptionalById(String memberId);
+
+    public boolean existsById(String memberId);
+
+    // findById() + 행 쓰기 락 (select ... for update). 트랜잭션 안에서 호출해야 락이 트랜잭션 끝까지 유지됨
+    // 없으면 findById()와 같은 예외
+    public Member findByIdForUpdate(String memberId);
+
+    // 여러 회원을 한 번에 조회 (id를 청크로 나눠 청크당 쿼리 한 번). 없는 id는 결과 Map에서 빠짐 (예외 없음)
+    public Map<String, Member> findByIds(Collection<String> memberIds);
+
+    // 키셋 페이지 조회: member_id 순으로 afterMemberId 다음부터 최대 limit건 (afterMemberId가 null이면 첫 페이지)
+    // 다음 페이지는 이번 페이지의 마지막 member_id를 afterMemberId로 넘겨 조회
+    public default List<Member> findPage(String afterMemberId, int limit) {
+        return findPage(afterMemberId, null, limit);
+    }
+
+    // minMoney가 null이 아니면 money >= minMoney 인 회원만
+    public List<Member> findPage(String afterMemberId, Integer minMoney, int limit);
+
     public void update(String memberId, int money);
 
+    // 낙관적 락 update: 조회했을 때의 version과 같을 때만 변경하고 version을 1 올림
+    // 그 사이 다른 트랜잭션이 변경했으면(version 불일치) OptimisticLockingFailureException
+    // (update(), withdraw(), deposit()도 version을 올리므로 어떤 변경이든 먼저 조회한 쪽의 쓰기를 막음)
+    public void update(String memberId, int money, int version);
+
+    // 상대값 출금 (money = money - amount). 잔액 검사도 같은 update문에서 수행 -> 조회 없이 한 번의 쿼리
+    // 잔액이 부족하거나 회원이 없으면 InsufficientMoneyException
+    // 변경된 행을 같은 쿼리에서 돌려받아(H2 FINAL TABLE) 출금 후의 회원을 리턴
+    public Member withdraw(String memberId, int amount);
+
+    // 상대값 입금 (money = money + amount). 회원이 없으면 findById()와 같은 예외
+    // 입금 후의 회원을 리턴
+    public Member deposit(String memberId, int amount);
+
+    // 여러 회원의 잔액을 상대값으로 한 번에 변경 (money = money + delta, JDBC 배치). map의 순서대로 실행 (정렬된 map을 넘기면 락 순서가 일정)
+    // 잔액이 음수가 되거나 없는 회원이 있으면 InsufficientMoneyException. 나머지 행은 이미 변경되었으므로 트랜잭션 안에서 호출해 롤백해야 함
+    public void applyDeltas(Map<String, Integer> deltas);
+
     public void delete(String memberId);
 }
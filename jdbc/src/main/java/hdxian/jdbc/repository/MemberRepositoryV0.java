@@ -7,6 +7,7 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * V0 - use JDBC Driver Manager
@@ -18,7 +19,7 @@ public class MemberRepositoryV0 {
 
     public Member save(Member member) throws SQLException {
         // 1. generate insert sql
-        String sql = "insert into member values (?, ?)";
+        String sql = "insert into member(member_id, money) values (?, ?)";
 
         // 2. declare Connection, Statement
         Connection conn = null;
@@ -52,6 +53,12 @@ public class MemberRepositoryV0 {
     }
 
     public Member findById(String memberId) throws SQLException {
+        // 없으면 예외. 예외 없이 확인하려면 findOptionalById(), existsById() 사용
+        return findOptionalById(memberId)
+                .orElseThrow(() -> new NoSuchElementException("member not found: memberId=" + memberId));
+    }
+
+    public Optional<Member> findOptionalById(String memberId) throws SQLException {
         // 1. generate sql
         String sql = "select * from member where member_id = ?";
 
@@ -76,15 +83,12 @@ public class MemberRepositoryV0 {
                 int money = rs.getInt("money");
                 member.setMemberId(id);
                 member.setMoney(money);
-                return member;
-            }
-            else {
-                // if no such member
-                throw new NoSuchElementException("member not found: memberId=" + memberId);
+                return Optional.of(member);
             }
+            return Optional.empty();
 
         } catch (SQLException e) {
-            log.error("[MemberRepositoryV0.findById] SQL Ex occurs", e);
+            log.error("[MemberRepositoryV0.findOptionalById] SQL Ex occurs", e);
             throw e;
         } finally {
             close(pstmt, conn, rs);
@@ -92,6 +96,10 @@ public class MemberRepositoryV0 {
 
     }
 
+    public boolean existsById(String memberId) throws SQLException {
+        return findOptionalById(memberId).isPresent();
+    }
+
     // it's similar with save
     public void update(String memberId, int money) throws SQLException {
         String sql = "update member set money = ? where member_id = ?";
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * V1 - use DataSource, JdbcUtils
@@ -26,7 +27,7 @@ public class MemberRepositoryV1 {
 
     public Member save(Member member) throws SQLException {
         // 1. generate insert sql
-        String sql = "insert into member values (?, ?)";
+        String sql = "insert into member(member_id, money) values (?, ?)";
 
         // 2. declare Connection, Statement
         Connection conn = null;
@@ -60,6 +61,12 @@ public class MemberRepositoryV1 {
     }
 
     public Member findById(String memberId) throws SQLException {
+        // 없으면 예외. 예외 없이 확인하려면 findOptionalById(), existsById() 사용
+        return findOptionalById(memberId)
+                .orElseThrow(() -> new NoSuchElementException("member not found: memberId=" + memberId));
+    }
+
+    public Optional<Member> findOptionalById(String memberId) throws SQLException {
         // 1. generate sql
         String sql = "select * from member where member_id = ?";
 
@@ -84,15 +91,12 @@ public class MemberRepositoryV1 {
                 int money = rs.getInt("money");
                 member.setMemberId(id);
                 member.setMoney(money);
-                return member;
-            }
-            else {
-                // if no such member
-                throw new NoSuchElementException("member not found: memberId=" + memberId);
+                return Optional.of(member);
             }
+            return Optional.empty();
 
         } catch (SQLException e) {
-            log.error("[MemberRepositoryV1.findById] SQL Ex occurs", e);
+            log.error("[MemberRepositoryV1.findOptionalById] SQL Ex occurs", e);
             throw e;
         } finally {
             close(rs, pstmt, conn);
@@ -100,6 +104,10 @@ public class MemberRepositoryV1 {
 
     }
 
+    public boolean existsById(String memberId) throws SQLException {
+        return findOptionalById(memberId).isPresent();
+    }
+
     // it's similar with save
     public void update(String memberId, int money) throws SQLException {
         String sql = "update member set money = ? where member_id = ?";
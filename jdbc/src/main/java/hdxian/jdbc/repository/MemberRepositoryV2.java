@@ -7,6 +7,7 @@ import org.springframework.jdbc.support.JdbcUtils;
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * V2 - use Connection on method parameter (find, update)
@@ -24,7 +25,7 @@ public class MemberRepositoryV2 {
 
     public Member save(Member member) throws SQLException {
         // 1. generate insert sql
-        String sql = "insert into member values (?, ?)";
+        String sql = "insert into member(member_id, money) values (?, ?)";
 
         // 2. declare Connection, Statement
         Connection conn = null;
@@ -58,6 +59,12 @@ public class MemberRepositoryV2 {
     }
 
     public Member findById(String memberId) throws SQLException {
+        // 없으면 예외. 예외 없이 확인하려면 findOptionalById(), existsById() 사용
+        return findOptionalById(memberId)
+                .orElseThrow(() -> new NoSuchElementException("member not found: memberId=" + memberId));
+    }
+
+    public Optional<Member> findOptionalById(String memberId) throws SQLException {
         // 1. generate sql
         String sql = "select * from member where member_id = ?";
 
@@ -82,15 +89,12 @@ public class MemberRepositoryV2 {
                 int money = rs.getInt("money");
                 member.setMemberId(id);
                 member.setMoney(money);
-                return member;
-            }
-            else {
-                // if no such member
-                throw new NoSuchElementException("member not found: memberId=" + memberId);
+                return Optional.of(member);
             }
+            return Optional.empty();
 
         } catch (SQLException e) {
-            log.error("[MemberRepositoryV2.findById] SQL Ex occurs", e);
+            log.error("[MemberRepositoryV2.findOptionalById] SQL Ex occurs", e);
             throw e;
         } finally {
             close(rs, pstmt, conn);
@@ -98,6 +102,10 @@ public class MemberRepositoryV2 {
 
     }
 
+    public boolean existsById(String memberId) throws SQLException {
+        return findOptionalById(memberId).isPresent();
+    }
+
     // use Connection param
     public Member findById(Connection con, String memberId) throws SQLException {
         // 1. generate sql
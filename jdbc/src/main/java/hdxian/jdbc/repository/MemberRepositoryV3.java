@@ -1,5 +1,6 @@
 package hdxian.jdbc.repository;
 
+import hdxian.jdbc.connection.PreparedStatementCache;
 import hdxian.jdbc.domain.Member;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.datasource.DataSourceUtils;
@@ -8,6 +9,7 @@ import org.springframework.jdbc.support.JdbcUtils;
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * V3 - get Connections from TransactionManager (트랜잭션 시작, 종료(커밋 또는 롤백), 커넥션 릴리즈 수행)
@@ -20,13 +22,20 @@ public class MemberRepositoryV3 {
     // DI
     private final DataSource dataSource; // 커넥션 가져오기. 근데 트랜잭션 매니저를 통해 가져올 것. (DataSourceUtils)
 
+    private final PreparedStatementCache statementCache; // null이면 캐시 사용 안 함
+
     public MemberRepositoryV3(DataSource dataSource) {
+        this(dataSource, null);
+    }
+
+    public MemberRepositoryV3(DataSource dataSource, PreparedStatementCache statementCache) {
         this.dataSource = dataSource;
+        this.statementCache = statementCache;
     }
 
     public Member save(Member member) throws SQLException {
         // 1. generate insert sql
-        String sql = "insert into member values (?, ?)";
+        String sql = "insert into member(member_id, money) values (?, ?)";
 
         // 2. declare Connection, Statement
         Connection conn = null;
@@ -37,7 +46,7 @@ public class MemberRepositoryV3 {
             conn = getConnection();
 
             // 4. prepare Statement
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
 
             // 5. binding parameter in sql
             pstmt.setString(1, member.getMemberId());
@@ -60,6 +69,12 @@ public class MemberRepositoryV3 {
     }
 
     public Member findById(String memberId) throws SQLException {
+        // 없으면 예외. 예외 없이 확인하려면 findOptionalById(), existsById() 사용
+        return findOptionalById(memberId)
+                .orElseThrow(() -> new NoSuchElementException("member not found: memberId=" + memberId));
+    }
+
+    public Optional<Member> findOptionalById(String memberId) throws SQLException {
         // 1. generate sql
         String sql = "select * from member where member_id = ?";
 
@@ -72,7 +87,7 @@ public class MemberRepositoryV3 {
         try {
             // get connection, prepare statement
             conn = getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
             pstmt.setString(1, memberId);
 
             // execute sql, get result
@@ -84,15 +99,12 @@ public class MemberRepositoryV3 {
                 int money = rs.getInt("money");
                 member.setMemberId(id);
                 member.setMoney(money);
-                return member;
-            }
-            else {
-                // if no such member
-                throw new NoSuchElementException("member not found: memberId=" + memberId);
+                return Optional.of(member);
             }
+            return Optional.empty();
 
         } catch (SQLException e) {
-            log.error("[MemberRepositoryV3.findById] SQL Ex occurs", e);
+            log.error("[MemberRepositoryV3.findOptionalById] SQL Ex occurs", e);
             throw e;
         } finally {
             close(rs, pstmt, conn);
@@ -100,6 +112,10 @@ public class MemberRepositoryV3 {
 
     }
 
+    public boolean existsById(String memberId) throws SQLException {
+        return findOptionalById(memberId).isPresent();
+    }
+
     // it's similar with save
     public void update(String memberId, int money) throws SQLException {
         String sql = "update member set money = ? where member_id = ?";
@@ -109,7 +125,7 @@ public class MemberRepositoryV3 {
 
         try {
             conn = getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
 
             pstmt.setInt(1, money);
             pstmt.setString(2, memberId);
@@ -134,7 +150,7 @@ public class MemberRepositoryV3 {
 
         try {
             conn = getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
 
             pstmt.setString(1, memberId);
 
@@ -154,13 +170,25 @@ public class MemberRepositoryV3 {
 
         // reverse order
         JdbcUtils.closeResultSet(rs);
-        JdbcUtils.closeStatement(st);
+        if (statementCache == null) {
+            JdbcUtils.closeStatement(st);
+        } else {
+            statementCache.closeStatement(con, st); // 캐시된 pstmt는 트랜잭션이 끝날 때 닫힘
+        }
 //        JdbcUtils.closeConnection(con);
         // 트랜잭션 매니저에 의해 관리되는 커넥션인 경우 닫지 않고 넘김.
         // 관리되는 커넥션이 아닌 경우 여기에서 닫음.
         DataSourceUtils.releaseConnection(con, dataSource);
     }
 
+    // statementCache가 있으면 트랜잭션 동안 같은 커넥션의 같은 SQL은 pstmt 재사용
+    private PreparedStatement prepareStatement(Connection con, String sql) throws SQLException {
+        if (statementCache == null) {
+            return con.prepareStatement(sql);
+        }
+        return statementCache.prepareStatement(con, sql, dataSource);
+    }
+
     private Connection getConnection() throws SQLException {
         // 트랜잭션 동기화(트랜잭션동안 같은 커넥션 사용)를 위해선 DataSourceUtils를 사용해야 함.
         Connection con = DataSourceUtils.getConnection(dataSource);
@@ -1,14 +1,23 @@
 package hdxian.jdbc.repository;
 
+import hdxian.jdbc.connection.PreparedStatementCache;
 import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
 import hdxian.jdbc.repository.ex.MyDbException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcUtils;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * V4 - 예외 누수 문제 해결
@@ -22,14 +31,31 @@ public class MemberRepositoryV4_1 implements MemberRepository {
     // DI
     private final DataSource dataSource; // 커넥션 가져오기. 근데 트랜잭션 매니저를 통해 가져올 것. (DataSourceUtils)
 
+    private final int batchSize; // saveAll(), applyDeltas() 한 번의 executeBatch()에 담을 행 수
+    private final PreparedStatementCache statementCache; // null이면 캐시 사용 안 함
+
     public MemberRepositoryV4_1(DataSource dataSource) {
+        this(dataSource, MemberBatchSupport.DEFAULT_BATCH_SIZE, null);
+    }
+
+    public MemberRepositoryV4_1(DataSource dataSource, int batchSize) {
+        this(dataSource, batchSize, null);
+    }
+
+    public MemberRepositoryV4_1(DataSource dataSource, PreparedStatementCache statementCache) {
+        this(dataSource, MemberBatchSupport.DEFAULT_BATCH_SIZE, statementCache);
+    }
+
+    public MemberRepositoryV4_1(DataSource dataSource, int batchSize, PreparedStatementCache statementCache) {
         this.dataSource = dataSource;
+        this.batchSize = batchSize;
+        this.statementCache = statementCache;
     }
 
     @Override
     public Member save(Member member) {
         // 1. generate insert sql
-        String sql = "insert into member values (?, ?)";
+        String sql = "insert into member(member_id, money) values (?, ?)";
 
         // 2. declare Connection, Statement
         Connection conn = null;
@@ -40,7 +66,7 @@ public class MemberRepositoryV4_1 implements MemberRepository {
             conn = getConnection();
 
             // 4. prepare Statement
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
 
             // 5. binding parameter in sql
             pstmt.setString(1, member.getMemberId());
@@ -62,8 +88,41 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 
     }
 
+    @Override
+    public List<SaveResult> saveAll(Collection<Member> members) {
+        String sql = MemberBatchSupport.INSERT_SQL;
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql);
+
+            List<SaveResult> results = new ArrayList<>(members.size());
+            for (List<Member> chunk : MemberBatchSupport.chunks(members, batchSize)) {
+                results.addAll(MemberBatchSupport.executeBatch(pstmt, chunk, MyDbException::new));
+                log.info("[MemberRepositoryV4_1.saveAll] batch OK, rows={}", chunk.size());
+            }
+            return results;
+
+        } catch (SQLException e) {
+            throw new MyDbException(e);
+        } finally {
+            close(null, pstmt, conn);
+        }
+
+    }
+
     @Override
     public Member findById(String memberId) {
+        // 없으면 예외. 예외 없이 확인하려면 findOptionalById(), existsById() 사용
+        return findOptionalById(memberId)
+                .orElseThrow(() -> new NoSuchElementException("member not found: memberId=" + memberId));
+    }
+
+    @Override
+    public Optional<Member> findOptionalById(String memberId) {
         // 1. generate sql
         String sql = "select * from member where member_id = ?";
 
@@ -76,27 +135,123 @@ public class MemberRepositoryV4_1 implements MemberRepository {
         try {
             // get connection, prepare statement
             conn = getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
             pstmt.setString(1, memberId);
 
             // execute sql, get result
             rs = pstmt.executeQuery();
 
             if (rs.next()) {  // result always 0 or 1 (select by PK)
-                Member member = new Member();
-                String id = rs.getString("member_id");
-                int money = rs.getInt("money");
-                member.setMemberId(id);
-                member.setMoney(money);
+                Member member = toMember(rs);
+                return Optional.of(member);
+            }
+            return Optional.empty();
+
+        } catch (SQLException e) {
+            throw new MyDbException(e); // Runtime Exception
+        } finally {
+            close(rs, pstmt, conn);
+        }
+
+    }
+
+    @Override
+    public boolean existsById(String memberId) {
+        return findOptionalById(memberId).isPresent();
+    }
+
+    // 조회한 행에 쓰기 락 (트랜잭션이 끝날 때까지 다른 트랜잭션의 변경, for update 조회가 대기)
+    @Override
+    public Member findByIdForUpdate(String memberId) {
+        String sql = "select * from member where member_id = ? for update";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql);
+            pstmt.setString(1, memberId);
+
+            rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                Member member = toMember(rs);
                 return member;
             }
             else {
-                // if no such member
-                throw new NoSuchElementException("member not found: memberId=" + memberId); // Runtime Exception
+                throw new NoSuchElementException("member not found: memberId=" + memberId);
             }
 
         } catch (SQLException e) {
-            throw new MyDbException(e); // Runtime Exception
+            throw new MyDbException(e);
+        } finally {
+            close(rs, pstmt, conn);
+        }
+
+    }
+
+    @Override
+    public Map<String, Member> findByIds(Collection<String> memberIds) {
+        String sql = MemberBatchSupport.FIND_BY_IDS_SQL;
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql); // 하나의 pstmt를 청크마다 재사용
+
+            Map<String, Member> members = new HashMap<>();
+            for (List<String> chunk : MemberBatchSupport.idChunks(memberIds)) {
+                pstmt.setArray(1, conn.createArrayOf("VARCHAR", chunk.toArray()));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Member member = toMember(rs);
+                        members.put(member.getMemberId(), member);
+                    }
+                }
+            }
+            log.info("[MemberRepositoryV4_1.findByIds] query OK, found={}", members.size());
+            return members;
+
+        } catch (SQLException e) {
+            throw new MyDbException(e);
+        } finally {
+            close(null, pstmt, conn);
+        }
+
+    }
+
+    @Override
+    public List<Member> findPage(String afterMemberId, Integer minMoney, int limit) {
+        String sql = MemberPageSupport.sql(afterMemberId, minMoney);
+        Object[] params = MemberPageSupport.params(afterMemberId, minMoney, limit);
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+
+            rs = pstmt.executeQuery();
+
+            List<Member> members = new ArrayList<>();
+            while (rs.next()) {
+                Member member = toMember(rs);
+                members.add(member);
+            }
+            log.info("[MemberRepositoryV4_1.findPage] query OK, size={}", members.size());
+            return members;
+
+        } catch (SQLException e) {
+            throw new MyDbException(e);
         } finally {
             close(rs, pstmt, conn);
         }
@@ -105,14 +260,14 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 
     @Override
     public void update(String memberId, int money) {
-        String sql = "update member set money = ? where member_id = ?";
+        String sql = "update member set money = ?, version = version + 1 where member_id = ?";
 
         Connection conn = null;
         PreparedStatement pstmt = null;
 
         try {
             conn = getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
 
             pstmt.setInt(1, money);
             pstmt.setString(2, memberId);
@@ -127,6 +282,133 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 
     }
 
+    @Override
+    public void update(String memberId, int money, int version) {
+        // 조회한 뒤 다른 트랜잭션이 먼저 변경했으면 version이 달라져 변경된 행이 없음
+        String sql = "update member set money = ?, version = version + 1 where member_id = ? and version = ?";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql);
+
+            pstmt.setInt(1, money);
+            pstmt.setString(2, memberId);
+            pstmt.setInt(3, version);
+
+            int affectedRows = pstmt.executeUpdate();
+            log.info("[MemberRepositoryV4_1.update] query OK, version={}, affected rows={}", version, affectedRows);
+            if (affectedRows == 0) {
+                throw new OptimisticLockingFailureException("stale version or member not found: memberId=" + memberId + ", version=" + version);
+            }
+        } catch (SQLException e) {
+            throw new MyDbException(e);
+        } finally {
+            close(null, pstmt, conn);
+        }
+
+    }
+
+
+    @Override
+    public Member withdraw(String memberId, int amount) {
+        // 잔액 조건을 where절에 포함 -> 조건을 만족하지 못하면 변경된 행이 없음
+        // FINAL TABLE: update로 변경된 행을 update 이후의 값으로 조회 (H2 data change delta table)
+        String sql = "select * from final table (update member set money = money - ?, version = version + 1 where member_id = ? and money >= ?)";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql);
+
+            pstmt.setInt(1, amount);
+            pstmt.setString(2, memberId);
+            pstmt.setInt(3, amount);
+
+            rs = pstmt.executeQuery(); // update + 결과 조회를 한 번에 수행
+
+            if (rs.next()) {
+                Member member = toMember(rs);
+                log.info("[MemberRepositoryV4_1.withdraw] query OK, money={}", member.getMoney());
+                return member;
+            }
+            else {
+                throw new InsufficientMoneyException("not enough money or member not found: memberId=" + memberId);
+            }
+        } catch (SQLException e) {
+            throw new MyDbException(e);
+        } finally {
+            close(rs, pstmt, conn);
+        }
+
+    }
+
+    @Override
+    public Member deposit(String memberId, int amount) {
+        String sql = "select * from final table (update member set money = money + ?, version = version + 1 where member_id = ?)";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql);
+
+            pstmt.setInt(1, amount);
+            pstmt.setString(2, memberId);
+
+            rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                Member member = toMember(rs);
+                log.info("[MemberRepositoryV4_1.deposit] query OK, money={}", member.getMoney());
+                return member;
+            }
+            else {
+                throw new NoSuchElementException("member not found: memberId=" + memberId);
+            }
+        } catch (SQLException e) {
+            throw new MyDbException(e);
+        } finally {
+            close(rs, pstmt, conn);
+        }
+
+    }
+
+
+    @Override
+    public void applyDeltas(Map<String, Integer> deltas) {
+        String sql = MemberBatchSupport.APPLY_DELTA_SQL;
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = getConnection();
+            pstmt = prepareStatement(conn, sql);
+
+            List<String> rejected = new ArrayList<>();
+            for (List<Map.Entry<String, Integer>> chunk : MemberBatchSupport.chunks(deltas.entrySet(), batchSize)) {
+                rejected.addAll(MemberBatchSupport.executeDeltaBatch(pstmt, chunk));
+            }
+            log.info("[MemberRepositoryV4_1.applyDeltas] batch OK, rows={}, rejected={}", deltas.size(), rejected.size());
+
+            if (!rejected.isEmpty()) {
+                throw new InsufficientMoneyException("not enough money or member not found: memberIds=" + rejected);
+            }
+        } catch (SQLException e) {
+            throw new MyDbException(e);
+        } finally {
+            close(null, pstmt, conn);
+        }
+
+    }
 
     @Override
     public void delete(String memberId) {
@@ -137,7 +419,7 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 
         try {
             conn = getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = prepareStatement(conn, sql);
 
             pstmt.setString(1, memberId);
 
@@ -151,18 +433,39 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 
     }
 
+    // 조회 결과 한 행 -> Member (version 컬럼은 sql/member_version.sql로 추가)
+    private Member toMember(ResultSet rs) throws SQLException {
+        Member member = new Member();
+        member.setMemberId(rs.getString("member_id"));
+        member.setMoney(rs.getInt("money"));
+        member.setVersion(rs.getInt("version"));
+        return member;
+    }
+
     private void close(ResultSet rs, Statement st, Connection con) {
         log.info("[MemberRepositoryV3.close] closing connection...");
 
         // reverse order
         JdbcUtils.closeResultSet(rs);
-        JdbcUtils.closeStatement(st);
+        if (statementCache == null) {
+            JdbcUtils.closeStatement(st);
+        } else {
+            statementCache.closeStatement(con, st); // 캐시된 pstmt는 트랜잭션이 끝날 때 닫힘
+        }
 //        JdbcUtils.closeConnection(con);
         // 트랜잭션 매니저에 의해 관리되는 커넥션인 경우 닫지 않고 넘김.
         // 관리되는 커넥션이 아닌 경우 여기에서 닫음.
         DataSourceUtils.releaseConnection(con, dataSource);
     }
 
+    // statementCache가 있으면 트랜잭션 동안 같은 커넥션의 같은 SQL은 pstmt 재사용
+    private PreparedStatement prepareStatement(Connection con, String sql) throws SQLException {
+        if (statementCache == null) {
+            return con.prepareStatement(sql);
+        }
+        return statementCache.prepareStatement(con, sql, dataSource);
+    }
+
     private Connection getConnection() throws SQLException {
         // 트랜잭션 동기화(트랜잭션동안 같은 커넥션 사용)를 위해선 DataSourceUtils를 사용해야 함.
         Connection con = DataSourceUtils.getConnection(dataSource);
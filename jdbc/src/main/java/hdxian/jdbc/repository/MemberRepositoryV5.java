@@ -1,8 +1,13 @@
 package hdxian.jdbc.repository;
 
 import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcUtils;
@@ -11,7 +16,14 @@ import org.springframework.jdbc.support.SQLExceptionTranslator;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * V5 - JdbcTemplate 적용
@@ -24,36 +36,167 @@ import java.util.NoSuchElementException;
 @Slf4j
 public class MemberRepositoryV5 implements MemberRepository {
 
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private final JdbcTemplate template;
+    private final int batchSize; // saveAll(), applyDeltas() 한 번의 executeBatch()에 담을 행 수
+    private final int fetchSize; // streamAll(), streamWhere()에서 DB로부터 한 번에 가져올 행 수
 
     public MemberRepositoryV5(DataSource dataSource) {
+        this(dataSource, MemberBatchSupport.DEFAULT_BATCH_SIZE);
+    }
+
+    public MemberRepositoryV5(DataSource dataSource, int batchSize) {
+        this(dataSource, batchSize, DEFAULT_FETCH_SIZE);
+    }
+
+    public MemberRepositoryV5(DataSource dataSource, int batchSize, int fetchSize) {
         // DataSource를 주입받아 template 필드 초기화
         this.template = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
     }
 
     @Override
     public Member save(Member member) {
-        String sql = "insert into member values (?, ?)";
+        String sql = "insert into member(member_id, money) values (?, ?)";
         int affectedRows = template.update(sql, member.getMemberId(), member.getMoney());
         log.info("[MemberRepositoryV5.save] Query Ok, affected rows={}", affectedRows);
         return member;
     }
 
+    @Override
+    public List<SaveResult> saveAll(Collection<Member> members) {
+        String sql = MemberBatchSupport.INSERT_SQL;
+        SQLExceptionTranslator exTranslator = template.getExceptionTranslator();
+
+        List<SaveResult> results = new ArrayList<>(members.size());
+        for (List<Member> chunk : MemberBatchSupport.chunks(members, batchSize)) {
+            // template.batchUpdate()는 실패 시 배치 전체를 예외 하나로 변환하므로, 행 단위 결과를 위해 pstmt를 직접 다룸
+            // 커넥션 동기화, pstmt 정리, 그 밖의 SQLException 변환은 template이 그대로 수행
+            List<SaveResult> chunkResults = template.execute(sql, (PreparedStatementCallback<List<SaveResult>>) pstmt ->
+                    MemberBatchSupport.executeBatch(pstmt, chunk, e -> exTranslator.translate("saveAll", sql, e)));
+            results.addAll(chunkResults);
+            log.info("[MemberRepositoryV5.saveAll] Batch Ok, rows={}", chunk.size());
+        }
+        return results;
+    }
+
     @Override
     public Member findById(String memberId) {
         String sql = "select * from member where member_id = ?";
         return template.queryForObject(sql, memberRowMapper(), memberId);
     }
 
+    // queryForObject()는 결과가 없으면 EmptyResultDataAccessException -> query()로 리스트를 받아 예외 없이 처리
+    @Override
+    public Optional<Member> findOptionalById(String memberId) {
+        String sql = "select * from member where member_id = ?";
+        return template.query(sql, memberRowMapper(), memberId).stream().findFirst();
+    }
 
+    @Override
+    public boolean existsById(String memberId) {
+        String sql = "select count(*) from member where member_id = ?";
+        Integer count = template.queryForObject(sql, Integer.class, memberId); // count(*)는 항상 1행
+        return count != null && count > 0;
+    }
+
+
+
+    // 조회한 행에 쓰기 락 (트랜잭션이 끝날 때까지 다른 트랜잭션의 변경, for update 조회가 대기)
+    @Override
+    public Member findByIdForUpdate(String memberId) {
+        String sql = "select * from member where member_id = ? for update";
+        return template.queryForObject(sql, memberRowMapper(), memberId);
+    }
+
+    @Override
+    public Map<String, Member> findByIds(Collection<String> memberIds) {
+        String sql = MemberBatchSupport.FIND_BY_IDS_SQL;
+
+        Map<String, Member> members = new HashMap<>();
+        for (List<String> chunk : MemberBatchSupport.idChunks(memberIds)) {
+            // id 목록을 H2 ARRAY 파라미터 하나로 바인딩
+            List<Member> found = template.query(sql,
+                    pstmt -> pstmt.setArray(1, pstmt.getConnection().createArrayOf("VARCHAR", chunk.toArray())),
+                    memberRowMapper());
+            for (Member member : found) {
+                members.put(member.getMemberId(), member);
+            }
+        }
+        log.info("[MemberRepositoryV5.findByIds] Query Ok, found={}", members.size());
+        return members;
+    }
+
+    @Override
+    public List<Member> findPage(String afterMemberId, Integer minMoney, int limit) {
+        String sql = MemberPageSupport.sql(afterMemberId, minMoney);
+        return template.query(sql, memberRowMapper(), MemberPageSupport.params(afterMemberId, minMoney, limit));
+    }
 
     @Override
     public void update(String memberId, int money) {
-        String sql = "update member set money = ? where member_id = ?";
+        String sql = "update member set money = ?, version = version + 1 where member_id = ?";
         int affectedRows = template.update(sql, money, memberId);
         log.info("[MemberRepositoryV5.update] Query Ok, affected rows={}", affectedRows);
     }
 
+    @Override
+    public void update(String memberId, int money, int version) {
+        String sql = "update member set money = ?, version = version + 1 where member_id = ? and version = ?";
+        int affectedRows = template.update(sql, money, memberId, version);
+        log.info("[MemberRepositoryV5.update] Query Ok, version={}, affected rows={}", version, affectedRows);
+
+        if (affectedRows == 0) {
+            throw new OptimisticLockingFailureException("stale version or member not found: memberId=" + memberId + ", version=" + version);
+        }
+    }
+
+
+    @Override
+    public Member withdraw(String memberId, int amount) {
+        // 잔액 조건을 where절에 포함 -> 조건을 만족하지 못하면 변경된 행이 없음
+        // FINAL TABLE: update로 변경된 행을 update 이후의 값으로 조회 (H2 data change delta table)
+        String sql = "select * from final table (update member set money = money - ?, version = version + 1 where member_id = ? and money >= ?)";
+        List<Member> updated = template.query(sql, memberRowMapper(), amount, memberId, amount);
+
+        if (updated.isEmpty()) {
+            throw new InsufficientMoneyException("not enough money or member not found: memberId=" + memberId);
+        }
+        log.info("[MemberRepositoryV5.withdraw] Query Ok, money={}", updated.get(0).getMoney());
+        return updated.get(0);
+    }
+
+    @Override
+    public Member deposit(String memberId, int amount) {
+        String sql = "select * from final table (update member set money = money + ?, version = version + 1 where member_id = ?)";
+        List<Member> updated = template.query(sql, memberRowMapper(), amount, memberId);
+
+        if (updated.isEmpty()) {
+            // findById()의 queryForObject()와 같은 예외
+            throw new EmptyResultDataAccessException("member not found: memberId=" + memberId, 1);
+        }
+        log.info("[MemberRepositoryV5.deposit] Query Ok, money={}", updated.get(0).getMoney());
+        return updated.get(0);
+    }
+
+
+    @Override
+    public void applyDeltas(Map<String, Integer> deltas) {
+        String sql = MemberBatchSupport.APPLY_DELTA_SQL;
+
+        List<String> rejected = new ArrayList<>();
+        for (List<Map.Entry<String, Integer>> chunk : MemberBatchSupport.chunks(deltas.entrySet(), batchSize)) {
+            rejected.addAll(template.execute(sql, (PreparedStatementCallback<List<String>>) pstmt ->
+                    MemberBatchSupport.executeDeltaBatch(pstmt, chunk)));
+        }
+        log.info("[MemberRepositoryV5.applyDeltas] Batch Ok, rows={}, rejected={}", deltas.size(), rejected.size());
+
+        if (!rejected.isEmpty()) {
+            throw new InsufficientMoneyException("not enough money or member not found: memberIds=" + rejected);
+        }
+    }
 
     @Override
     public void delete(String memberId) {
@@ -62,12 +205,47 @@ public class MemberRepositoryV5 implements MemberRepository {
         log.info("[MemberRepositoryV5.delete] Query Ok, affected rows={}", affectedRows);
     }
 
+    /**
+     * 전체 회원을 Stream으로 조회. 결과를 리스트에 모으지 않고 fetchSize 단위로 DB에서 가져온다.
+     * 커넥션, pstmt, ResultSet은 Stream을 닫을 때 정리되므로 반드시 try-with-resources로 사용
+     * (트랜잭션 밖이라면 Stream을 닫을 때까지 커넥션 하나를 점유함)
+     */
+    public Stream<Member> streamAll() {
+        String sql = "select * from member";
+        return template.queryForStream(streamStatement(sql), memberRowMapper());
+    }
+
+    // 전체 회원 id만 Stream으로 조회 (BloomFilterMemberRepository.rebuild()). 사용법은 streamAll()과 같음
+    public Stream<String> streamIds() {
+        String sql = "select member_id from member";
+        return template.queryForStream(streamStatement(sql), (rs, rowNum) -> rs.getString("member_id"));
+    }
+
+    // money >= minMoney 인 회원을 Stream으로 조회. 사용법은 streamAll()과 같음
+    public Stream<Member> streamWhere(int minMoney) {
+        String sql = "select * from member where money >= ?";
+        return template.queryForStream(streamStatement(sql, minMoney), memberRowMapper());
+    }
+
+    // forward only, read only 커서 + fetchSize 적용
+    private PreparedStatementCreator streamStatement(String sql, Object... params) {
+        return con -> {
+            PreparedStatement pstmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            return pstmt;
+        };
+    }
+
     // 쿼리 결과를 Member에 매핑해 리턴하는 함수 template.queryForObject()에 사용
     private RowMapper<Member> memberRowMapper() {
         return ((rs, rowNum) -> {
             Member member = new Member();
             member.setMemberId(rs.getString("member_id"));
             member.setMoney(rs.getInt("money"));
+            member.setVersion(rs.getInt("version"));
             return member;
         });
     }
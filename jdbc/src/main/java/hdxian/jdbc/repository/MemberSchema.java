@@ -0,0 +1,24 @@
+package hdxian.jdbc.repository;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+/**
+ * member 테이블 마이그레이션 (sql/member_version.sql)
+ * MemberRepositoryV4_1, V4_2, V5는 version 컬럼을 읽고 씀 -> 기존 테이블에 컬럼이 없으면 먼저 실행
+ *
+ * - 스프링 부트: application.properties의 spring.sql.init이 시작할 때 같은 스크립트를 실행
+ * - 스프링 컨텍스트 없이 DataSource를 직접 만드는 테스트, 벤치마크: migrate()를 직접 호출
+ * 스크립트는 여러 번 실행해도 같음 (add column if not exists)
+ */
+public abstract class MemberSchema {
+
+    public static final String VERSION_SCRIPT = "sql/member_version.sql";
+
+    public static void migrate(DataSource dataSource) {
+        new ResourceDatabasePopulator(new ClassPathResource(VERSION_SCRIPT)).execute(dataSource);
+    }
+
+}
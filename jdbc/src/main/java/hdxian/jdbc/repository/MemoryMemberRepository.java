@@ -0,0 +1,401 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JDBC 없이 메모리에 저장하는 MemberRepository (테스트, 읽기 전용 복제본 용)
+ * 저장소는 StripedBalanceMap (member_id -> 잔액, version. 박싱/항목별 객체 없음)
+ *
+ * MemberRepositoryV5와 같은 동작
+ * - 중복 키 save -> DuplicateKeyException (saveAll은 행 단위 결과)
+ * - 없는 회원 findById, deposit -> EmptyResultDataAccessException
+ * - 잔액 부족 또는 없는 회원 withdraw -> InsufficientMoneyException
+ * - 없는 회원 update, delete -> 아무 일도 없음
+ * - version이 다르거나 없는 회원 update(id, money, version) -> OptimisticLockingFailureException
+ * - int 범위를 넘는 입금 -> DataIntegrityViolationException
+ *
+ * 트랜잭션: 트랜잭션 동기화가 활성화되어 있으면 변경 전 값을 기록하고, 롤백되면 역순으로 되돌린다.
+ * (MemoryTransactionManager로 DB 없이 사용 가능) 변경은 즉시 다른 스레드에 보인다. (read uncommitted)
+ *
+ * 행 락 (select ... for update 대응): 트랜잭션 안의 findByIdForUpdate()와 변경 메서드(save, update, withdraw, deposit, applyDeltas, delete)는
+ * 회원별 락을 잡고 트랜잭션이 끝날 때(afterCompletion, 롤백이면 되돌린 뒤) 푼다. (H2가 변경한 행의 락을 커밋까지 유지하는 것과 같음)
+ * 다른 트랜잭션이 락을 잡고 있으면 끝날 때까지 기다림
+ * -> 조회 후 절대값 update(accountTransferLocked)에서 갱신 분실 없음, 롤백(절대값 복원)이 다른 트랜잭션의 커밋된 변경을 덮어쓰지 않음
+ * 트랜잭션 밖의 변경은 변경하는 동안만 락을 잡음
+ * LOCK_TIMEOUT_MILLIS 안에 못 잡으면 CannotAcquireLockException. 트랜잭션 밖의 findByIdForUpdate()는 락 없이 findById()
+ * (auto commit에서 select for update와 같음). 락 객체는 회원마다 하나씩 만들어 유지한다.
+ */
+@Slf4j
+public class MemoryMemberRepository implements MemberRepository {
+
+    private static final int DEFAULT_STRIPES = 16;
+    private static final long LOCK_TIMEOUT_MILLIS = 1000; // H2 기본 LOCK_TIMEOUT과 같음
+
+    private final StripedBalanceMap balances;
+    private final ConcurrentHashMap<String, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+
+    public MemoryMemberRepository() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public MemoryMemberRepository(int stripes) {
+        this.balances = new StripedBalanceMap(stripes);
+    }
+
+    @Override
+    public Member save(Member member) {
+        ReentrantLock lock = lockRow(member.getMemberId());
+        try {
+            if (!balances.putIfAbsent(member.getMemberId(), member.getMoney())) {
+                throw duplicateKey(member.getMemberId());
+            }
+            recordUndo(member.getMemberId(), false, StripedBalanceMap.ABSENT);
+            return member;
+        } finally {
+            releaseRow(lock);
+        }
+    }
+
+    @Override
+    public List<SaveResult> saveAll(Collection<Member> members) {
+        List<SaveResult> results = new ArrayList<>(members.size());
+        for (Member member : members) {
+            try {
+                results.add(SaveResult.success(save(member)));
+            } catch (DuplicateKeyException e) {
+                results.add(SaveResult.failure(member, e));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Member findById(String memberId) {
+        long versioned = balances.getVersioned(memberId);
+        if (versioned == StripedBalanceMap.ABSENT) {
+            throw notFound(memberId);
+        }
+        return toMember(memberId, versioned);
+    }
+
+    @Override
+    public Optional<Member> findOptionalById(String memberId) {
+        long versioned = balances.getVersioned(memberId);
+        if (versioned == StripedBalanceMap.ABSENT) {
+            return Optional.empty();
+        }
+        return Optional.of(toMember(memberId, versioned));
+    }
+
+    @Override
+    public boolean existsById(String memberId) {
+        return balances.get(memberId) != StripedBalanceMap.ABSENT;
+    }
+
+    // 트랜잭션 안이면 행 락을 잡고 트랜잭션이 끝날 때까지 유지
+    @Override
+    public Member findByIdForUpdate(String memberId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseRow(lockRow(memberId));
+        }
+        return findById(memberId);
+    }
+
+    @Override
+    public Map<String, Member> findByIds(Collection<String> memberIds) {
+        Map<String, Member> members = new HashMap<>();
+        for (String memberId : memberIds) {
+            if (memberId == null) {
+                continue;
+            }
+            long versioned = balances.getVersioned(memberId);
+            if (versioned != StripedBalanceMap.ABSENT) {
+                members.put(memberId, toMember(memberId, versioned));
+            }
+        }
+        return members;
+    }
+
+    // 전체를 훑으며 조건에 맞는 가장 작은 id limit개를 유지 (정렬된 인덱스가 없으므로 O(n log limit))
+    @Override
+    public List<Member> findPage(String afterMemberId, Integer minMoney, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: limit=" + limit);
+        }
+
+        PriorityQueue<Member> page = new PriorityQueue<>(Comparator.comparing(Member::getMemberId).reversed());
+        balances.forEach((memberId, money, version) -> {
+            if (afterMemberId != null && memberId.compareTo(afterMemberId) <= 0) {
+                return;
+            }
+            if (minMoney != null && money < minMoney) {
+                return;
+            }
+            if (page.size() < limit) {
+                page.add(new Member(memberId, money, version));
+            } else if (memberId.compareTo(page.peek().getMemberId()) < 0) {
+                page.poll();
+                page.add(new Member(memberId, money, version));
+            }
+        });
+
+        List<Member> members = new ArrayList<>(page);
+        members.sort(Comparator.comparing(Member::getMemberId));
+        return members;
+    }
+
+    @Override
+    public void update(String memberId, int money) {
+        ReentrantLock lock = lockRow(memberId);
+        try {
+            long previous = balances.replace(memberId, money);
+            if (previous != StripedBalanceMap.ABSENT) {
+                recordUndo(memberId, false, previous);
+            }
+        } finally {
+            releaseRow(lock);
+        }
+    }
+
+    @Override
+    public void update(String memberId, int money, int version) {
+        ReentrantLock lock = lockRow(memberId);
+        try {
+            long previous = balances.replaceIfVersion(memberId, money, version);
+            if (previous == StripedBalanceMap.ABSENT || previous == StripedBalanceMap.STALE) {
+                throw new OptimisticLockingFailureException("stale version or member not found: memberId=" + memberId + ", version=" + version);
+            }
+            recordUndo(memberId, false, previous);
+        } finally {
+            releaseRow(lock);
+        }
+    }
+
+    @Override
+    public Member withdraw(String memberId, int amount) {
+        ReentrantLock lock = lockRow(memberId);
+        try {
+            long versioned = balances.withdraw(memberId, amount);
+            if (versioned == StripedBalanceMap.ABSENT || versioned == StripedBalanceMap.INSUFFICIENT) {
+                throw new InsufficientMoneyException("not enough money or member not found: memberId=" + memberId);
+            }
+            recordUndo(memberId, true, amount); // 상대값으로 되돌림 -> 그 사이 다른 트랜잭션의 변경을 덮어쓰지 않음
+            return toMember(memberId, versioned);
+        } finally {
+            releaseRow(lock);
+        }
+    }
+
+    @Override
+    public Member deposit(String memberId, int amount) {
+        ReentrantLock lock = lockRow(memberId);
+        try {
+            long versioned;
+            try {
+                versioned = balances.deposit(memberId, amount);
+            } catch (ArithmeticException e) {
+                throw new DataIntegrityViolationException("money out of range: memberId=" + memberId, e);
+            }
+            if (versioned == StripedBalanceMap.ABSENT) {
+                throw notFound(memberId);
+            }
+            recordUndo(memberId, true, -amount);
+            return toMember(memberId, versioned);
+        } finally {
+            releaseRow(lock);
+        }
+    }
+
+    // 하나라도 실패하면 이미 적용한 변경을 되돌리고 예외 (트랜잭션 밖에서 호출해도 전부 적용되거나 전부 안 됨)
+    @Override
+    public void applyDeltas(Map<String, Integer> deltas) {
+        List<Map.Entry<String, Integer>> applied = new ArrayList<>(deltas.size());
+        List<String> rejected = new ArrayList<>();
+
+        try {
+            for (Map.Entry<String, Integer> delta : deltas.entrySet()) {
+                if (applyDelta(delta.getKey(), delta.getValue())) {
+                    applied.add(delta);
+                } else {
+                    rejected.add(delta.getKey());
+                }
+            }
+            if (!rejected.isEmpty()) {
+                throw new InsufficientMoneyException("not enough money or member not found: memberIds=" + rejected);
+            }
+        } catch (RuntimeException e) {
+            for (Map.Entry<String, Integer> delta : applied) {
+                applyDelta(delta.getKey(), -delta.getValue());
+            }
+            throw e;
+        }
+        for (Map.Entry<String, Integer> delta : applied) {
+            recordUndo(delta.getKey(), true, -delta.getValue());
+        }
+    }
+
+    @Override
+    public void delete(String memberId) {
+        ReentrantLock lock = lockRow(memberId);
+        try {
+            long previous = balances.remove(memberId);
+            if (previous != StripedBalanceMap.ABSENT) {
+                recordUndo(memberId, false, previous);
+            }
+        } finally {
+            releaseRow(lock);
+        }
+    }
+
+    public int size() {
+        return balances.size();
+    }
+
+    public void clear() {
+        balances.clear();
+    }
+
+    // 트랜잭션 안이면 되돌리는 방법을 기록
+    // relative: value만큼 입금해서 되돌림 / 아니면: value(변경 전 값, 없던 회원이면 ABSENT)로 되돌림
+    private void recordUndo(String memberId, boolean relative, long value) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        undoLog().entries.push(new UndoEntry(memberId, relative, value));
+    }
+
+    // 현재 트랜잭션의 UndoLog (트랜잭션 동기화가 활성화되어 있어야 함)
+    private UndoLog undoLog() {
+        UndoLog undoLog = (UndoLog) TransactionSynchronizationManager.getResource(this);
+        if (undoLog == null) {
+            undoLog = new UndoLog();
+            TransactionSynchronizationManager.bindResource(this, undoLog);
+            TransactionSynchronizationManager.registerSynchronization(undoLog);
+        }
+        return undoLog;
+    }
+
+    private boolean applyDelta(String memberId, int delta) {
+        ReentrantLock lock = lockRow(memberId);
+        long versioned;
+        try {
+            versioned = delta >= 0 ? balances.deposit(memberId, delta) : balances.withdraw(memberId, -delta);
+        } catch (ArithmeticException e) {
+            throw new DataIntegrityViolationException("money out of range: memberId=" + memberId, e);
+        } finally {
+            releaseRow(lock);
+        }
+        return versioned != StripedBalanceMap.ABSENT && versioned != StripedBalanceMap.INSUFFICIENT;
+    }
+
+    // 트랜잭션 안이면 락을 UndoLog에 넘겨 트랜잭션이 끝날 때 풂, 밖이면 바로 풂
+    // 이 트랜잭션(스레드)에서 처음 잡은 락만 기록. 재진입으로 더 잡은 것은 바로 풂
+    private void releaseRow(ReentrantLock lock) {
+        if (TransactionSynchronizationManager.isSynchronizationActive() && lock.getHoldCount() == 1) {
+            undoLog().locks.add(lock);
+        } else {
+            lock.unlock();
+        }
+    }
+
+    // 회원의 행 락을 잡음 (같은 스레드는 재진입). 호출한 쪽에서 releaseRow()
+    private ReentrantLock lockRow(String memberId) {
+        ReentrantLock lock = rowLocks.computeIfAbsent(memberId, id -> new ReentrantLock());
+        try {
+            if (!lock.tryLock(LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new CannotAcquireLockException("lock timeout: memberId=" + memberId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("interrupted while waiting for lock: memberId=" + memberId, e);
+        }
+        return lock;
+    }
+
+    private static Member toMember(String memberId, long versioned) {
+        return new Member(memberId, StripedBalanceMap.money(versioned), StripedBalanceMap.version(versioned));
+    }
+
+    private static DuplicateKeyException duplicateKey(String memberId) {
+        return new DuplicateKeyException("duplicate key: memberId=" + memberId);
+    }
+
+    private static EmptyResultDataAccessException notFound(String memberId) {
+        return new EmptyResultDataAccessException("member not found: memberId=" + memberId, 1);
+    }
+
+    private record UndoEntry(String memberId, boolean relative, long value) {
+    }
+
+    // 트랜잭션 하나의 변경 기록과 잡은 행 락. 롤백되면 최근 변경부터 되돌리고, 끝나면 락을 풂
+    private class UndoLog implements TransactionSynchronization {
+
+        private final Deque<UndoEntry> entries = new ArrayDeque<>();
+        private final List<ReentrantLock> locks = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(MemoryMemberRepository.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(MemoryMemberRepository.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MemoryMemberRepository.this);
+            try {
+                if (status == STATUS_ROLLED_BACK) {
+                    rollback();
+                }
+            } finally {
+                // 되돌린 뒤에 락을 풂 -> 기다리던 트랜잭션은 롤백된 값을 봄
+                for (ReentrantLock lock : locks) {
+                    lock.unlock();
+                }
+                locks.clear();
+            }
+        }
+
+        private void rollback() {
+            log.info("[MemoryMemberRepository.rollback] undo changes={}", entries.size());
+            while (!entries.isEmpty()) {
+                UndoEntry entry = entries.pop();
+                if (entry.relative) {
+                    balances.deposit(entry.memberId, (int) entry.value); // 그 사이 삭제되었으면 ABSENT -> 무시
+                } else if (entry.value == StripedBalanceMap.ABSENT) {
+                    balances.remove(entry.memberId);
+                } else {
+                    balances.put(entry.memberId, (int) entry.value);
+                }
+            }
+        }
+
+    }
+
+}
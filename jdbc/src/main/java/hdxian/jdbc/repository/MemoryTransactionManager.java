@@ -0,0 +1,90 @@
+package hdxian.jdbc.repository;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DB 없이 트랜잭션 경계와 트랜잭션 동기화만 제공하는 트랜잭션 매니저 (MemoryMemberRepository 용)
+ * 커밋/롤백 자체는 아무것도 하지 않는다. MemoryMemberRepository가 트랜잭션 동기화(afterCompletion)로 롤백 시 변경을 되돌린다.
+ * -> @Transactional, TransactionTemplate을 쓰는 서비스를 H2 서버 없이 실행할 수 있음
+ *
+ * 전파: REQUIRED, REQUIRES_NEW, SUPPORTS 등 (트랜잭션 참여는 스레드에 바인딩된 리소스로 판단). NESTED(savepoint)는 지원하지 않음
+ */
+public class MemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+    @Override
+    protected Object doGetTransaction() {
+        return new MemoryTransaction((TransactionHolder) TransactionSynchronizationManager.getResource(this));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((MemoryTransaction) transaction).holder != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        TransactionHolder holder = new TransactionHolder();
+        ((MemoryTransaction) transaction).holder = holder;
+        TransactionSynchronizationManager.bindResource(this, holder);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((MemoryTransaction) transaction).holder = null;
+        return TransactionSynchronizationManager.unbindResource(this);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(this, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        // 변경은 이미 반영되어 있음
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        // 되돌리기는 MemoryMemberRepository의 afterCompletion에서 수행
+    }
+
+    // 참여한 트랜잭션에서 예외 -> 바깥 트랜잭션도 롤백되도록 표시
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((MemoryTransaction) status.getTransaction()).holder.rollbackOnly = true;
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(this);
+    }
+
+    private static final class TransactionHolder {
+        volatile boolean rollbackOnly;
+    }
+
+    private static final class MemoryTransaction implements SmartTransactionObject {
+
+        private TransactionHolder holder;
+
+        MemoryTransaction(TransactionHolder holder) {
+            this.holder = holder;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return holder != null && holder.rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+    }
+
+}
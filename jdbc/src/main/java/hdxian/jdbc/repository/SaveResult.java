@@ -0,0 +1,31 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * saveAll()의 행 단위 결과
+ * 성공하면 error == null, 실패하면 변환된 예외(DuplicateKeyException 등)를 담는다.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class SaveResult {
+
+    Member member;
+    RuntimeException error;
+
+    public static SaveResult success(Member member) {
+        return new SaveResult(member, null);
+    }
+
+    public static SaveResult failure(Member member, RuntimeException error) {
+        return new SaveResult(member, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+}
@@ -0,0 +1,214 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 회원에 대한 동시 조회를 하나의 쿼리로 합치는 MemberRepository 데코레이터 (single flight)
+ * findById(id) 조회가 진행 중일 때 같은 id로 들어온 호출은 새 쿼리를 실행하지 않고 진행 중인 쿼리의 결과를 기다린다.
+ * -> 인기 계좌 하나에 수십 개의 스레드가 몰려도 커넥션 하나, 쿼리 하나
+ *
+ * - 트랜잭션 안의 호출은 합치지 않음 (자기 커넥션에서 보이는 값을 읽어야 하므로)
+ * - 결과 Member는 호출마다 복사해서 리턴 (Member는 setter가 있어 공유하면 서로 영향을 줌)
+ * - 예외도 기다린 호출 모두에게 그대로 전달
+ * - 이 데코레이터를 거친 변경이 있으면 진행 중인 조회에서 분리 -> 변경 이후의 호출은 새 쿼리를 실행
+ *   트랜잭션 안의 변경은 커밋 후에 한 번 더 분리 (커밋 전에 시작한 조회는 이전 값을 읽었을 수 있음)
+ */
+@Slf4j
+public class SingleFlightMemberRepository extends ForwardingMemberRepository {
+
+    private final DataSource dataSource;
+
+    private final ConcurrentMap<String, CompletableFuture<Member>> findByIdCalls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Optional<Member>>> findOptionalByIdCalls = new ConcurrentHashMap<>();
+
+    private final LongAdder queryCount = new LongAdder(); // 실제로 delegate를 호출한 수
+    private final LongAdder coalescedCount = new LongAdder(); // 진행 중인 조회의 결과를 받은 수
+
+    public SingleFlightMemberRepository(MemberRepository delegate, DataSource dataSource) {
+        super(delegate);
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Member findById(String memberId) {
+        if (inTransaction()) {
+            return delegate.findById(memberId);
+        }
+        return copy(coalesce(findByIdCalls, memberId, () -> delegate.findById(memberId)));
+    }
+
+    @Override
+    public Optional<Member> findOptionalById(String memberId) {
+        if (inTransaction()) {
+            return delegate.findOptionalById(memberId);
+        }
+        return coalesce(findOptionalByIdCalls, memberId, () -> delegate.findOptionalById(memberId))
+                .map(SingleFlightMemberRepository::copy);
+    }
+
+    @Override
+    public Member save(Member member) {
+        try {
+            return delegate.save(member);
+        } finally {
+            detach(member.getMemberId());
+        }
+    }
+
+    @Override
+    public List<SaveResult> saveAll(Collection<Member> members) {
+        try {
+            return delegate.saveAll(members);
+        } finally {
+            for (Member member : members) {
+                detach(member.getMemberId());
+            }
+        }
+    }
+
+    @Override
+    public void update(String memberId, int money) {
+        try {
+            delegate.update(memberId, money);
+        } finally {
+            detach(memberId);
+        }
+    }
+
+    @Override
+    public void update(String memberId, int money, int version) {
+        try {
+            delegate.update(memberId, money, version);
+        } finally {
+            detach(memberId);
+        }
+    }
+
+    @Override
+    public Member withdraw(String memberId, int amount) {
+        try {
+            return delegate.withdraw(memberId, amount);
+        } finally {
+            detach(memberId);
+        }
+    }
+
+    @Override
+    public Member deposit(String memberId, int amount) {
+        try {
+            return delegate.deposit(memberId, amount);
+        } finally {
+            detach(memberId);
+        }
+    }
+
+    @Override
+    public void applyDeltas(Map<String, Integer> deltas) {
+        try {
+            delegate.applyDeltas(deltas);
+        } finally {
+            for (String memberId : deltas.keySet()) {
+                detach(memberId);
+            }
+        }
+    }
+
+    @Override
+    public void delete(String memberId) {
+        try {
+            delegate.delete(memberId);
+        } finally {
+            detach(memberId);
+        }
+    }
+
+    public long getQueryCount() {
+        return queryCount.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    // 먼저 온 호출(leader)이 쿼리를 실행하고, 그동안 온 같은 id의 호출은 leader의 결과를 기다림
+    private <T> T coalesce(ConcurrentMap<String, CompletableFuture<T>> calls, String memberId, Supplier<T> query) {
+        CompletableFuture<T> call = new CompletableFuture<>();
+        CompletableFuture<T> inFlight = calls.putIfAbsent(memberId, call);
+
+        if (inFlight != null) {
+            coalescedCount.increment();
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        queryCount.increment();
+        try {
+            T result = query.get();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e); // Error도 전달 -> 기다리는 호출이 멈춰 있지 않음
+            throw e;
+        } finally {
+            calls.remove(memberId, call); // 이후의 호출은 새 쿼리
+        }
+    }
+
+    private void detach(String memberId) {
+        detachNow(memberId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 변경 ~ 커밋 사이에 시작한 조회는 커밋 전 값을 읽음 -> 커밋 후의 호출이 그 조회에 합류하지 않도록 다시 분리
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    detachNow(memberId);
+                }
+            });
+        }
+    }
+
+    private void detachNow(String memberId) {
+        findByIdCalls.remove(memberId);
+        findOptionalByIdCalls.remove(memberId);
+    }
+
+    // 트랜잭션 동기화 중이거나, 이 DataSource의 커넥션이 스레드에 바인딩되어 있으면 트랜잭션 안으로 봄
+    private boolean inTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(dataSource);
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+
+    private static Member copy(Member member) {
+        return new Member(member.getMemberId(), member.getMoney(), member.getVersion());
+    }
+
+}
@@ -0,0 +1,344 @@
+package hdxian.jdbc.repository;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * member_id -> 잔액(int), version(int) 맵 (MemoryMemberRepository 용)
+ * - open addressing(linear probing): String[] 키 배열 + int[] 값 배열 + int[] version 배열. Integer 박싱, 항목별 Entry/Member 객체 없음
+ * - 추가 시 version 0, 값을 바꿀 때마다 version + 1 (MemberRepositoryV5의 version 컬럼과 같음)
+ * - 키 해시로 나눈 stripe마다 별도의 테이블과 읽기/쓰기 락 -> 서로 다른 stripe의 키는 동시에 변경 가능
+ * - 삭제는 backward shift (tombstone 없음), 부하율 50%를 넘으면 stripe 테이블을 2배로 늘림
+ *
+ * 값이 없음을 박싱 없이 알리기 위해 조회/변경 메서드는 long을 리턴한다. (없으면 ABSENT)
+ * getVersioned()는 잔액과 version을 long 하나에 담아 리턴 -> money(), version()으로 꺼냄
+ */
+class StripedBalanceMap {
+
+    static final long ABSENT = Long.MIN_VALUE;
+    static final long INSUFFICIENT = Long.MIN_VALUE + 1; // withdraw(): 잔액 부족
+    static final long STALE = Long.MIN_VALUE + 2; // replaceIfVersion(): version 불일치
+
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    StripedBalanceMap(int stripeCount) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two: stripeCount=" + stripeCount);
+        }
+
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(stripeCount);
+    }
+
+    long get(String key) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.readLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            return slot < 0 ? ABSENT : stripe.values[slot];
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    // 상위 32비트 version, 하위 32비트 잔액. 없으면 ABSENT
+    // (version은 0 이상이므로 ABSENT 등 음수 sentinel과 겹치지 않음)
+    long getVersioned(String key) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.readLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            return slot < 0 ? ABSENT : pack(stripe.values[slot], stripe.versions[slot]);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    static int money(long versioned) {
+        return (int) versioned;
+    }
+
+    static int version(long versioned) {
+        return (int) (versioned >>> 32);
+    }
+
+    // 없을 때만 추가. 추가했으면 true
+    boolean putIfAbsent(String key, int value) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.writeLock().lock();
+        try {
+            if (stripe.find(key, hash) >= 0) {
+                return false;
+            }
+            stripe.insert(key, hash, value);
+            return true;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // 없으면 추가, 있으면 덮어씀. 이전 값 리턴
+    long put(String key, int value) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.writeLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            if (slot < 0) {
+                stripe.insert(key, hash, value);
+                return ABSENT;
+            }
+            int previous = stripe.values[slot];
+            stripe.values[slot] = value;
+            stripe.versions[slot]++;
+            return previous;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // 있을 때만 덮어씀. 이전 값 리턴
+    long replace(String key, int value) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.writeLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            if (slot < 0) {
+                return ABSENT;
+            }
+            int previous = stripe.values[slot];
+            stripe.values[slot] = value;
+            stripe.versions[slot]++;
+            return previous;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // version이 expectedVersion일 때만 덮어씀. 이전 값 리턴, 없으면 ABSENT, version이 다르면 STALE
+    long replaceIfVersion(String key, int value, int expectedVersion) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.writeLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            if (slot < 0) {
+                return ABSENT;
+            }
+            if (stripe.versions[slot] != expectedVersion) {
+                return STALE;
+            }
+            int previous = stripe.values[slot];
+            stripe.values[slot] = value;
+            stripe.versions[slot]++;
+            return previous;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // 잔액이 amount 이상일 때만 차감. 차감 후 잔액과 version(getVersioned()와 같은 형식), 없으면 ABSENT, 부족하면 INSUFFICIENT
+    long withdraw(String key, int amount) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.writeLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            if (slot < 0) {
+                return ABSENT;
+            }
+            if (stripe.values[slot] < amount) {
+                return INSUFFICIENT;
+            }
+            stripe.values[slot] -= amount;
+            stripe.versions[slot]++;
+            return pack(stripe.values[slot], stripe.versions[slot]);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // 입금 후 잔액과 version(getVersioned()와 같은 형식), 없으면 ABSENT. int 범위를 넘으면 ArithmeticException (변경 없음)
+    long deposit(String key, int amount) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.writeLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            if (slot < 0) {
+                return ABSENT;
+            }
+            stripe.values[slot] = Math.addExact(stripe.values[slot], amount);
+            stripe.versions[slot]++;
+            return pack(stripe.values[slot], stripe.versions[slot]);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // 삭제 후 이전 값 리턴
+    long remove(String key) {
+        int hash = hash(key);
+        Stripe stripe = stripe(hash);
+        stripe.lock.writeLock().lock();
+        try {
+            int slot = stripe.find(key, hash);
+            if (slot < 0) {
+                return ABSENT;
+            }
+            int previous = stripe.values[slot];
+            stripe.removeAt(slot);
+            return previous;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // stripe 단위로 읽기 락을 잡고 순회 (전체 스냅샷은 아님)
+    void forEach(EntryConsumer consumer) {
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                for (int slot = 0; slot < stripe.keys.length; slot++) {
+                    if (stripe.keys[slot] != null) {
+                        consumer.accept(stripe.keys[slot], stripe.values[slot], stripe.versions[slot]);
+                    }
+                }
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.writeLock().lock();
+            try {
+                stripe.keys = new String[INITIAL_STRIPE_CAPACITY];
+                stripe.values = new int[INITIAL_STRIPE_CAPACITY];
+                stripe.versions = new int[INITIAL_STRIPE_CAPACITY];
+                stripe.size = 0;
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static long pack(int value, int version) {
+        return ((long) version << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    private Stripe stripe(int hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[hash >>> stripeShift];
+    }
+
+    // 상위 비트는 stripe 선택, 하위 비트는 stripe 안의 위치에 사용
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(String key, int value, int version);
+    }
+
+    // lock으로 보호되는 테이블 하나
+    private static final class Stripe {
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        String[] keys = new String[INITIAL_STRIPE_CAPACITY];
+        int[] values = new int[INITIAL_STRIPE_CAPACITY];
+        int[] versions = new int[INITIAL_STRIPE_CAPACITY];
+        int size;
+
+        int find(String key, int hash) {
+            int mask = keys.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                String k = keys[slot];
+                if (k == null) {
+                    return -1;
+                }
+                if (k.equals(key)) {
+                    return slot;
+                }
+            }
+        }
+
+        // 추가한 위치 리턴
+        int insert(String key, int hash, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            versions[slot] = 0;
+            size++;
+            return slot;
+        }
+
+        // 뒤따르는 항목을 당겨 probe 경로에 빈 칸이 생기지 않게 함
+        void removeAt(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    versions[hole] = versions[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = null;
+            values[hole] = 0;
+            versions[hole] = 0;
+            size--;
+        }
+
+        private void resize() {
+            String[] oldKeys = keys;
+            int[] oldValues = values;
+            int[] oldVersions = versions;
+            keys = new String[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            versions = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = insert(oldKeys[i], hash(oldKeys[i]), oldValues[i]);
+                    versions[slot] = oldVersions[i];
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,381 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 인기 계좌(가맹점 계좌 등) 입금을 모아서 쓰는 MemberRepository 데코레이터 (write-behind)
+ * 지정한 계좌로의 deposit()은 DB에 바로 쓰지 않고 계좌별 누적기에 더해 두었다가,
+ * flushInterval마다 계좌당 update 한 번(money = money + 누적액)으로 반영한다.
+ * -> 초당 수천 건의 입금이 같은 행에 update(행 락 경합)하는 대신 주기마다 1건
+ *
+ * - 누적기: 계좌마다 여러 칸의 AtomicLong(AtomicLongArray, 칸 사이 padding). 입금 스레드는 임의의 칸에 더함 (락 없음)
+ *   반영할 때 칸마다 getAndSet(0)으로 꺼내므로 동시에 들어온 입금이 사라지지 않음
+ * - 트랜잭션 안의 입금은 트랜잭션별로 모았다가 커밋된 후에 누적 (롤백되면 버림)
+ * - deposit()은 DB를 읽지 않음. 회원 존재 여부는 계좌당 처음 한 번만 조회하고, 잔액 범위는 반영할 때 DB가 검사
+ *   -> 리턴하는 잔액은 추정값 (마지막으로 확인한 DB 잔액 + 누적분 + 이 트랜잭션에서 누적한 입금). 정확한 값은 findByIdWithPending()
+ * - 반영은 별도 트랜잭션(REQUIRES_NEW)에서 실행. 실패하면(계좌가 삭제된 경우 포함) 꺼낸 금액을 누적기에 되돌리고 error 로그
+ *   -> 누적분은 버리지 않음. 반영하지 못한 금액은 getPendingAmount()로 확인
+ * - delete()는 누적분을 먼저 입금한 뒤 삭제 (같은 트랜잭션. 롤백되면 누적기에 되돌림)
+ * - 상대값 입금이므로 다른 변경(update 절대값, version update)과 순서가 바뀌어도 결과가 같음 -> 그 변경들은 그대로 위임
+ * - withdraw()가 잔액 부족이면 누적된 입금을 호출한 쪽 트랜잭션에서 먼저 입금하고 한 번 더 시도
+ *   (별도 트랜잭션으로 반영하면 호출한 트랜잭션이 잡은 행 락을 기다리다 실패함. 롤백되면 누적기에 되돌림)
+ *   입금이 실패하면 원래의 InsufficientMoneyException에 입금 실패를 suppressed로 붙여 던짐
+ *
+ * 조회
+ * - findById() 등은 DB 값 그대로 (version과 잔액이 일치해야 하는 낙관적 락 이체용)
+ * - 누적분까지 합친 잔액은 findByIdWithPending() (반영 중인 금액이 빠지거나 두 번 더해지지 않도록 반영과 읽기 락으로 배제)
+ *
+ * 종료: close()에서 주기 반영을 멈추고 남은 누적분을 모두 반영한다. (스프링 빈이면 컨테이너 종료 시 close() 자동 호출)
+ * 프로세스가 비정상 종료되면 마지막 반영 이후의 입금(최대 flushInterval 동안)은 유실됨 -> 유실이 허용되지 않는 계좌에는 사용하지 않음
+ */
+@Slf4j
+public class WriteBehindMemberRepository extends ForwardingMemberRepository implements AutoCloseable {
+
+    private static final int CELLS = 8;   // 2의 거듭제곱
+    private static final int PADDING = 8; // 칸 사이 간격 (long 8개 = 64바이트, false sharing 방지)
+
+    private final Map<String, Account> accounts; // 생성 후 변경 없음 -> 동기화 없이 조회
+    private final TransactionTemplate flushTemplate;
+    private final ScheduledExecutorService scheduler; // flushIntervalMillis가 0이면 null (flush() 직접 호출)
+
+    private final LongAdder bufferedCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushedAmount = new LongAdder();
+
+    public WriteBehindMemberRepository(MemberRepository delegate, PlatformTransactionManager transactionManager,
+                                       Collection<String> hotMemberIds, long flushIntervalMillis) {
+        super(delegate);
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("flushIntervalMillis must not be negative: flushIntervalMillis=" + flushIntervalMillis);
+        }
+
+        Map<String, Account> accounts = new HashMap<>();
+        for (String memberId : hotMemberIds) {
+            accounts.put(memberId, new Account());
+        }
+        this.accounts = Map.copyOf(accounts);
+
+        this.flushTemplate = new TransactionTemplate(transactionManager);
+        this.flushTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (flushIntervalMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "write-behind-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    @Override
+    public Member deposit(String memberId, int amount) {
+        Account account = accounts.get(memberId);
+        if (account == null || amount <= 0) {
+            return delegate.deposit(memberId, amount);
+        }
+
+        // 없는 회원이면 delegate와 같은 예외. 확인된 계좌는 다시 조회하지 않음 (delete() 전까지)
+        Member known = account.lastKnown;
+        if (known == null) {
+            known = delegate.findById(memberId);
+            account.lastKnown = known;
+        }
+
+        TransactionCredits credits = currentCredits(account); // 트랜잭션 밖이면 null
+        long buffered = credits == null ? 0 : credits.amount;
+        long money = known.getMoney() + account.pending() + buffered + amount;
+        if (money > Integer.MAX_VALUE) {
+            throw new DataIntegrityViolationException("money out of range: memberId=" + memberId,
+                    new ArithmeticException("integer overflow")); // MemoryMemberRepository와 같은 형태
+        }
+
+        if (credits == null) {
+            account.add(amount);
+        } else {
+            credits.amount += amount;
+        }
+        bufferedCount.increment();
+        return new Member(memberId, (int) money, known.getVersion());
+    }
+
+    @Override
+    public Member withdraw(String memberId, int amount) {
+        Account account = accounts.get(memberId);
+        Member member;
+        try {
+            member = delegate.withdraw(memberId, amount);
+        } catch (InsufficientMoneyException e) {
+            if (account == null || account.pending() == 0) {
+                throw e;
+            }
+            // 누적된 입금을 반영하면 잔액이 충분할 수 있음
+            try {
+                flushInCallerTransaction(memberId, account);
+            } catch (RuntimeException flushFailure) {
+                e.addSuppressed(flushFailure);
+                throw e;
+            }
+            member = delegate.withdraw(memberId, amount);
+        }
+        if (account != null) {
+            account.lastKnown = member;
+        }
+        return member;
+    }
+
+    // 누적분을 먼저 입금하고 삭제 -> 삭제된 계좌로의 입금이 누적기에 남아 사라지지 않음
+    @Override
+    public void delete(String memberId) {
+        Account account = accounts.get(memberId);
+        if (account == null) {
+            delegate.delete(memberId);
+            return;
+        }
+
+        account.flushLock.writeLock().lock();
+        try {
+            account.lastKnown = null; // 이후 deposit()은 존재 여부를 다시 조회
+            flushInCallerTransaction(memberId, account);
+            delegate.delete(memberId);
+        } finally {
+            account.flushLock.writeLock().unlock();
+        }
+    }
+
+    // DB 값 + 아직 반영하지 않은 입금
+    public Member findByIdWithPending(String memberId) {
+        Account account = accounts.get(memberId);
+        if (account == null) {
+            return delegate.findById(memberId);
+        }
+
+        account.flushLock.readLock().lock();
+        try {
+            Member member = delegate.findById(memberId);
+            long money = member.getMoney() + account.pending();
+            return new Member(memberId, (int) Math.min(money, Integer.MAX_VALUE), member.getVersion());
+        } finally {
+            account.flushLock.readLock().unlock();
+        }
+    }
+
+    public long getPendingAmount(String memberId) {
+        Account account = accounts.get(memberId);
+        return account == null ? 0 : account.pending();
+    }
+
+    // 모든 계좌의 누적분을 반영. 실패한 계좌는 누적기에 남기고 다음 계좌 진행 (예외를 던지지 않음 -> 주기 실행이 취소되지 않음)
+    public void flush() {
+        accounts.forEach((memberId, account) -> {
+            try {
+                flush(memberId, account);
+            } catch (RuntimeException e) {
+                log.error("[WriteBehindMemberRepository.flush] failed, memberId={}", memberId, e);
+            }
+        });
+    }
+
+    // 주기 반영을 멈추고 남은 누적분을 반영
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("[WriteBehindMemberRepository.close] flush thread did not terminate");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        accounts.forEach((memberId, account) -> {
+            if (account.pending() != 0) {
+                log.error("[WriteBehindMemberRepository.close] not flushed, memberId={}, amount={}", memberId, account.pending());
+            }
+        });
+    }
+
+    // deposit()으로 누적된 입금 건수
+    public long getBufferedCount() {
+        return bufferedCount.sum();
+    }
+
+    // 실제로 실행한 반영 update 수 (계좌 단위)
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    public long getFlushedAmount() {
+        return flushedAmount.sum();
+    }
+
+    private void flush(String memberId, Account account) {
+        // 꺼내기 ~ 커밋 동안 findByIdWithPending()을 막음 -> 반영 중인 금액이 DB와 누적기 어디에도 안 보이는 순간이 없음
+        account.flushLock.writeLock().lock();
+        try {
+            long amount = account.drain();
+            if (amount == 0) {
+                return;
+            }
+
+            Member member;
+            try {
+                member = flushTemplate.execute(status -> depositAll(memberId, amount));
+            } catch (RuntimeException e) {
+                account.add(amount); // 버리지 않음. 다음 반영 때 다시 시도 (계좌가 삭제되었으면 getPendingAmount()에 계속 남음)
+                throw e;
+            }
+
+            account.lastKnown = member;
+            flushCount.increment();
+            flushedAmount.add(amount);
+            log.info("[WriteBehindMemberRepository.flush] memberId={}, amount={}", memberId, amount);
+        } finally {
+            account.flushLock.writeLock().unlock();
+        }
+    }
+
+    // 누적분을 호출한 쪽 트랜잭션에서 입금 (트랜잭션 밖이면 바로 반영). 롤백되면 누적기에 되돌림
+    // 커밋 전까지는 다른 스레드의 findByIdWithPending()에 이 금액이 빠져 보일 수 있음
+    private void flushInCallerTransaction(String memberId, Account account) {
+        account.flushLock.writeLock().lock();
+        try {
+            long amount = account.drain();
+            if (amount == 0) {
+                return;
+            }
+
+            try {
+                depositAll(memberId, amount);
+            } catch (RuntimeException e) {
+                account.add(amount);
+                throw e;
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            account.add(amount); // 입금도 롤백됨 -> 다시 누적
+                        }
+                    }
+                });
+            }
+
+            flushCount.increment();
+            flushedAmount.add(amount);
+            log.info("[WriteBehindMemberRepository.flushInCallerTransaction] memberId={}, amount={}", memberId, amount);
+        } finally {
+            account.flushLock.writeLock().unlock();
+        }
+    }
+
+    // int 범위를 넘는 누적액은 나눠서 입금 (호출한 쪽 트랜잭션). 마지막 입금 후의 회원 리턴
+    private Member depositAll(String memberId, long amount) {
+        Member member = null;
+        for (long remaining = amount; remaining > 0; remaining -= Integer.MAX_VALUE) {
+            member = delegate.deposit(memberId, (int) Math.min(remaining, Integer.MAX_VALUE));
+        }
+        return member;
+    }
+
+    // 현재 트랜잭션에서 이 계좌로 누적한 입금. 처음이면 만들어서 트랜잭션에 등록 (커밋되면 누적기에 더함)
+    private TransactionCredits currentCredits(Account account) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        TransactionCredits credits = (TransactionCredits) TransactionSynchronizationManager.getResource(account);
+        if (credits == null) {
+            credits = new TransactionCredits(account);
+            TransactionSynchronizationManager.bindResource(account, credits);
+            TransactionSynchronizationManager.registerSynchronization(credits);
+        }
+        return credits;
+    }
+
+    // 계좌 하나의 누적기
+    private static final class Account {
+
+        final AtomicLongArray cells = new AtomicLongArray(CELLS * PADDING);
+        final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+        volatile Member lastKnown; // 마지막으로 확인한 DB 값. null이면 아직 존재 여부를 확인하지 않음
+
+        void add(long amount) {
+            int cell = ThreadLocalRandom.current().nextInt(CELLS);
+            cells.getAndAdd(cell * PADDING, amount);
+        }
+
+        long drain() {
+            long sum = 0;
+            for (int i = 0; i < CELLS; i++) {
+                sum += cells.getAndSet(i * PADDING, 0);
+            }
+            return sum;
+        }
+
+        long pending() {
+            long sum = 0;
+            for (int i = 0; i < CELLS; i++) {
+                sum += cells.get(i * PADDING);
+            }
+            return sum;
+        }
+
+    }
+
+    // 트랜잭션 하나가 계좌 하나에 누적한 입금 (트랜잭션 리소스로 등록, 그 트랜잭션 스레드만 사용)
+    private static final class TransactionCredits implements TransactionSynchronization {
+
+        private final Account account;
+        long amount;
+
+        TransactionCredits(Account account) {
+            this.account = account;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(account);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(account, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            account.add(amount);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(account);
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package hdxian.jdbc.repository.cache;
+
+import hdxian.jdbc.domain.Member;
+
+/**
+ * CachingMemberRepository가 사용하는 회원 캐시 저장소 (thread-safe)
+ * 크기 제한, TTL 만료, 제거 정책은 구현체가 담당한다.
+ */
+public interface MemberCacheStore {
+
+    // 없거나 만료되었으면 null. 호출마다 새 Member를 만들어 리턴 (Member는 setter가 있어 공유하면 캐시가 오염될 수 있음)
+    Member get(String memberId);
+
+    void put(Member member);
+
+    // 제거한 경우 true
+    boolean remove(String memberId);
+
+    void clear();
+
+    int size();
+
+    // 크기 초과 + TTL 만료로 제거된 수
+    long getEvictionCount();
+
+}
@@ -0,0 +1,287 @@
+package hdxian.jdbc.repository.cache;
+
+import hdxian.jdbc.domain.Member;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 힙 밖(direct ByteBuffer)에 저장하는 캐시 저장소
+ * 회원 하나를 고정 크기(64바이트) 바이너리 레코드로 저장하고, 조회할 때만 Member 객체를 만든다.
+ * -> 항목 수와 관계없이 힙에는 slab ByteBuffer 몇 개와 int[] 인덱스 하나뿐이라 GC가 추적할 객체가 늘지 않음
+ *
+ * - 레코드: slab(레코드 16384개, 1MiB) 배열에 레코드 번호 순으로 배치
+ * - 인덱스: open addressing(linear probing) int[] 해시 테이블, 값은 레코드 번호 + 1 (0은 빈 칸), 삭제는 backward shift
+ * - 제거: CLOCK (조회 시 참조 비트 설정, 자리가 필요하면 시계 바늘을 돌며 참조 비트가 없는 레코드를 제거)
+ * - member_id가 MAX_ID_CHARS자를 넘으면 캐시하지 않음 (member_id는 varchar(10))
+ *
+ * 레코드 레이아웃 (바이트 오프셋)
+ *  0 flags(1) | 1 id 길이(1) | 4 id hash(4) | 8 money(4) | 12 version(4) | 16 expiresAt(8) | 24 id(UTF-16, 최대 40)
+ */
+public class OffHeapMemberCacheStore implements MemberCacheStore {
+
+    public static final int MAX_ID_CHARS = 20;
+    public static final int RECORD_SIZE = 64;
+
+    private static final int FLAGS = 0;
+    private static final int ID_LENGTH = 1;
+    private static final int HASH = 4;
+    private static final int MONEY = 8;
+    private static final int VERSION = 12;
+    private static final int EXPIRES_AT = 16;
+    private static final int ID = 24;
+
+    private static final byte OCCUPIED = 1;
+    private static final byte REFERENCED = 2;
+
+    private static final int SLAB_SHIFT = 14;
+    private static final int SLAB_RECORDS = 1 << SLAB_SHIFT;
+
+    private final int capacity;
+    private final long ttlNanos;
+
+    private final ByteBuffer[] slabs;
+    private final int[] index;
+    private final int mask;
+    private final int hashShift;
+
+    // lock: this
+    private int allocated; // 한 번이라도 사용된 레코드 수 (capacity에 도달하면 이후엔 CLOCK으로 자리를 찾음)
+    private int size;
+    private int clockHand;
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public OffHeapMemberCacheStore(int capacity, long ttlMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: capacity=" + capacity);
+        }
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("ttlMillis must be positive: ttlMillis=" + ttlMillis);
+        }
+
+        this.capacity = capacity;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+
+        int slabCount = (capacity + SLAB_RECORDS - 1) >>> SLAB_SHIFT;
+        this.slabs = new ByteBuffer[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            int records = Math.min(SLAB_RECORDS, capacity - (i << SLAB_SHIFT));
+            slabs[i] = ByteBuffer.allocateDirect(records * RECORD_SIZE);
+        }
+
+        // 부하율 50% 이하 -> probe 길이를 짧게 유지
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        this.index = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.hashShift = 32 - Integer.numberOfTrailingZeros(tableSize);
+    }
+
+    @Override
+    public synchronized Member get(String memberId) {
+        int slot = find(memberId);
+        if (slot < 0) {
+            return null;
+        }
+
+        int record = index[slot] - 1;
+        ByteBuffer slab = slab(record);
+        int base = base(record);
+
+        if (System.nanoTime() - slab.getLong(base + EXPIRES_AT) >= 0) {
+            removeAt(slot);
+            evictionCount.increment();
+            return null;
+        }
+
+        slab.put(base + FLAGS, (byte) (OCCUPIED | REFERENCED));
+        return new Member(memberId, slab.getInt(base + MONEY), slab.getInt(base + VERSION));
+    }
+
+    @Override
+    public synchronized void put(Member member) {
+        String memberId = member.getMemberId();
+        if (memberId.length() > MAX_ID_CHARS) {
+            return;
+        }
+
+        int slot = find(memberId);
+        int record;
+        byte flags;
+        if (slot >= 0) {
+            record = index[slot] - 1;
+            flags = OCCUPIED | REFERENCED; // 갱신도 사용으로 봄
+        } else {
+            record = allocate(); // 자리를 만들려고 제거가 일어날 수 있으므로 인덱스 위치는 그 다음에 찾음
+            slot = emptySlot(memberId.hashCode());
+            index[slot] = record + 1;
+            size++;
+            writeId(record, memberId);
+            flags = OCCUPIED; // 새 항목은 한 번이라도 조회되어야 다음 바퀴까지 남음
+        }
+
+        ByteBuffer slab = slab(record);
+        int base = base(record);
+        slab.put(base + FLAGS, flags);
+        slab.putInt(base + MONEY, member.getMoney());
+        slab.putInt(base + VERSION, member.getVersion());
+        slab.putLong(base + EXPIRES_AT, System.nanoTime() + ttlNanos);
+    }
+
+    @Override
+    public synchronized boolean remove(String memberId) {
+        int slot = find(memberId);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(index, 0);
+        allocated = 0;
+        size = 0;
+        clockHand = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 레코드 slab + 인덱스 (힙 밖 + int[])
+    public long getMemoryBytes() {
+        return (long) capacity * RECORD_SIZE + (long) index.length * Integer.BYTES;
+    }
+
+    // 새 레코드 번호. 가득 찼으면 CLOCK으로 하나를 비움
+    private int allocate() {
+        if (allocated < capacity) {
+            return allocated++;
+        }
+
+        while (true) {
+            int record = clockHand;
+            clockHand = (clockHand + 1) % capacity;
+
+            ByteBuffer slab = slab(record);
+            int base = base(record);
+            byte flags = slab.get(base + FLAGS);
+
+            if ((flags & OCCUPIED) == 0) {
+                return record; // remove(), 만료로 비워진 레코드
+            }
+            if ((flags & REFERENCED) != 0) {
+                slab.put(base + FLAGS, OCCUPIED); // 한 바퀴 더 기회
+                continue;
+            }
+
+            removeAt(slotOf(record));
+            evictionCount.increment();
+            return record;
+        }
+    }
+
+    // memberId의 인덱스 위치, 없으면 -1
+    private int find(String memberId) {
+        int hash = memberId.hashCode();
+        for (int slot = home(hash); ; slot = (slot + 1) & mask) {
+            int value = index[slot];
+            if (value == 0) {
+                return -1;
+            }
+            int record = value - 1;
+            if (slab(record).getInt(base(record) + HASH) == hash && idEquals(record, memberId)) {
+                return slot;
+            }
+        }
+    }
+
+    private int emptySlot(int hash) {
+        int slot = home(hash);
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int slotOf(int record) {
+        int hash = slab(record).getInt(base(record) + HASH);
+        int slot = home(hash);
+        while (index[slot] != record + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // 인덱스에서 제거하고 레코드를 비움. 뒤따르는 항목을 당겨 probe 경로에 빈 칸이 생기지 않게 함 (backward shift)
+    private void removeAt(int slot) {
+        int record = index[slot] - 1;
+        slab(record).put(base(record) + FLAGS, (byte) 0);
+        size--;
+
+        int hole = slot;
+        for (int next = (hole + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+            int moved = index[next] - 1;
+            int home = home(slab(moved).getInt(base(moved) + HASH));
+            // next 항목의 원래 위치(home)에서 next까지의 거리가 hole까지의 거리 이상이면 hole로 당길 수 있음
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                index[hole] = index[next];
+                hole = next;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void writeId(int record, String memberId) {
+        ByteBuffer slab = slab(record);
+        int base = base(record);
+        slab.put(base + ID_LENGTH, (byte) memberId.length());
+        slab.putInt(base + HASH, memberId.hashCode());
+        for (int i = 0; i < memberId.length(); i++) {
+            slab.putChar(base + ID + i * 2, memberId.charAt(i));
+        }
+    }
+
+    // 문자열을 만들지 않고 레코드의 id와 비교
+    private boolean idEquals(int record, String memberId) {
+        ByteBuffer slab = slab(record);
+        int base = base(record);
+        if (slab.get(base + ID_LENGTH) != memberId.length()) {
+            return false;
+        }
+        for (int i = 0; i < memberId.length(); i++) {
+            if (slab.getChar(base + ID + i * 2) != memberId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 곱셈 해시의 상위 비트 사용 -> 비슷한 id의 hashCode가 인접한 칸에 몰리지 않음
+    private int home(int hash) {
+        return (hash * 0x9E3779B9) >>> hashShift;
+    }
+
+    private ByteBuffer slab(int record) {
+        return slabs[record >>> SLAB_SHIFT];
+    }
+
+    private static int base(int record) {
+        return (record & (SLAB_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+}
@@ -0,0 +1,85 @@
+package hdxian.jdbc.repository.cache;
+
+import hdxian.jdbc.domain.Member;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 힙에 저장하는 캐시 저장소 - access order LinkedHashMap (LRU) + TTL
+ * 항목마다 Map.Entry, key String, 값 객체가 힙에 생긴다.
+ */
+public class OnHeapMemberCacheStore implements MemberCacheStore {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, CacheEntry> cache; // lock: this
+    private final LongAdder evictionCount = new LongAdder();
+
+    public OnHeapMemberCacheStore(int maxSize, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: maxSize=" + maxSize);
+        }
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("ttlMillis must be positive: ttlMillis=" + ttlMillis);
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > OnHeapMemberCacheStore.this.maxSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Member get(String memberId) {
+        CacheEntry entry = cache.get(memberId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            cache.remove(memberId);
+            evictionCount.increment();
+            return null;
+        }
+        return new Member(memberId, entry.money, entry.version);
+    }
+
+    @Override
+    public synchronized void put(Member member) {
+        cache.put(member.getMemberId(), new CacheEntry(member.getMoney(), member.getVersion(), System.nanoTime() + ttlNanos));
+    }
+
+    @Override
+    public synchronized boolean remove(String memberId) {
+        return cache.remove(memberId) != null;
+    }
+
+    @Override
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private record CacheEntry(int money, int version, long expiresAt) {
+    }
+
+}
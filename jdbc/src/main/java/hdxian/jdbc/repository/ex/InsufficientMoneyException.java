@@ -0,0 +1,21 @@
+package hdxian.jdbc.repository.ex;
+
+// 잔액 부족 (출금 조건 money >= amount 를 만족하는 행이 없음)
+public class InsufficientMoneyException extends RuntimeException {
+
+    public InsufficientMoneyException() {
+    }
+
+    public InsufficientMoneyException(String message) {
+        super(message);
+    }
+
+    public InsufficientMoneyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InsufficientMoneyException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,120 @@
+package hdxian.jdbc.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * JVM 안에서 member_id 단위로 작업을 직렬화하는 striped lock
+ * 같은 계좌를 건드리는 이체를 트랜잭션 시작(커넥션 획득) 전에 줄 세운다.
+ * -> 인기 계좌(급여, 가맹점 계좌 등)로 이체가 몰려도 H2 행 락을 기다리며 커넥션을 붙잡고 있는 트랜잭션이 생기지 않음
+ *    (행 락 대기 중인 트랜잭션이 풀의 커넥션을 모두 차지하면 다른 계좌의 이체까지 커넥션을 못 얻음)
+ *
+ * - member_id 해시로 stripe(ReentrantLock) 선택. 다른 id가 같은 stripe에 걸리면 불필요하게 직렬화될 수 있음 (stripe 수로 조절)
+ * - 두 계좌는 stripe 번호 순서로 획득 -> A -> B, B -> A 이체가 동시에 와도 데드락 없음. 같은 stripe면 한 번만 획득
+ * - lockTimeout 안에 획득하지 못하면 CannotAcquireLockException (TransientDataAccessException -> RetryingTransactionExecutor가 재시도 가능)
+ * - 한 JVM 안에서만 유효. 여러 인스턴스가 같은 DB를 쓰면 DB의 행 락이 여전히 최종 보호 수단
+ */
+@Slf4j
+public class AccountLockManager {
+
+    public static final int DEFAULT_STRIPES = 1024;
+    public static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 5000;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final long lockTimeoutNanos;
+
+    private final LongAdder contendedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    public AccountLockManager() {
+        this(DEFAULT_STRIPES, DEFAULT_LOCK_TIMEOUT_MILLIS);
+    }
+
+    public AccountLockManager(int stripes, long lockTimeoutMillis) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of two: stripes=" + stripes);
+        }
+        if (lockTimeoutMillis < 0) {
+            throw new IllegalArgumentException("lockTimeoutMillis must not be negative: lockTimeoutMillis=" + lockTimeoutMillis);
+        }
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = stripes - 1;
+        this.lockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis);
+    }
+
+    // 두 계좌의 락을 잡은 상태에서 action 실행 (action 안에서 트랜잭션을 시작해야 커넥션을 락 획득 후에 빌림)
+    public <T> T executeLocked(String memberId1, String memberId2, Supplier<T> action) {
+        int first = stripe(memberId1);
+        int second = stripe(memberId2);
+        if (first > second) {
+            int tmp = first;
+            first = second;
+            second = tmp;
+        }
+
+        lock(first, memberId1, memberId2);
+        try {
+            if (second != first) {
+                lock(second, memberId1, memberId2);
+            }
+            try {
+                return action.get();
+            } finally {
+                if (second != first) {
+                    locks[second].unlock();
+                }
+            }
+        } finally {
+            locks[first].unlock();
+        }
+    }
+
+    public <T> T executeLocked(String memberId, Supplier<T> action) {
+        return executeLocked(memberId, memberId, action);
+    }
+
+    // 바로 획득하지 못하고 기다린 횟수
+    public long getContendedCount() {
+        return contendedCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    private void lock(int stripe, String memberId1, String memberId2) {
+        ReentrantLock lock = locks[stripe];
+        if (lock.tryLock()) {
+            return;
+        }
+
+        contendedCount.increment();
+        try {
+            if (lock.tryLock(lockTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("interrupted while waiting for account lock: " + memberId1 + ", " + memberId2, e);
+        }
+
+        timeoutCount.increment();
+        log.info("[AccountLockManager.lock] timeout, stripe={}, memberIds={}, {}", stripe, memberId1, memberId2);
+        throw new CannotAcquireLockException("account lock timeout: " + memberId1 + ", " + memberId2);
+    }
+
+    private int stripe(String memberId) {
+        int h = memberId.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+}
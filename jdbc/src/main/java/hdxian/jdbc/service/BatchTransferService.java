@@ -0,0 +1,131 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import hdxian.jdbc.service.TransferOutcome.RejectReason;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 대량 이체 (정산 파일 등) - 이체를 한 건씩 accountTransfer()로 실행하는 대신 계좌별로 상계(netting)해서 한 번에 반영
+ *
+ * 1. 관련 계좌를 findByIds()로 한 번에 조회
+ * 2. 요청 순서대로 메모리에서 검증: 수락된 이체만 잔액에 반영하면서, 출금 계좌 잔액이 음수가 되는 이체는 거절
+ *    -> 요청을 순서대로 하나씩 실행한 것과 같은 수락/거절 결과
+ * 3. 계좌별 순변동(입금 합 - 출금 합)이 0이 아닌 계좌만 applyDeltas()로 변경 (JDBC 배치, 계좌당 update 1번)
+ *    -> 이체 N건이 update 2N번 대신 (관련 계좌 수) 번
+ *
+ * 한 트랜잭션에서 실행. 조회 후 다른 트랜잭션이 잔액을 바꿔 update의 잔액 검사(money + delta >= 0)에 걸리거나
+ * 입금 계좌 잔액이 int 범위를 넘으면(SQLState 22003) OptimisticLockingFailureException으로 전체를 롤백하고
+ * RetryingTransactionExecutor가 처음(조회)부터 다시 실행한다.
+ * -> 다시 조회한 잔액으로 요청을 하나씩 검증하므로 원인이 된 이체만 거절(INSUFFICIENT_MONEY, MONEY_OUT_OF_RANGE)되고 나머지는 반영
+ *    (실패한 배치는 일부 행이 반영되었을 수 있으므로 같은 트랜잭션에서 행 단위로 다시 실행하지 않음)
+ */
+@Slf4j
+public class BatchTransferService {
+
+    private final RetryingTransactionExecutor txExecutor;
+    private final MemberRepository memberRepository;
+
+    public BatchTransferService(PlatformTransactionManager transactionManager, MemberRepository memberRepository) {
+        this(new RetryingTransactionExecutor(transactionManager), memberRepository);
+    }
+
+    public BatchTransferService(RetryingTransactionExecutor txExecutor, MemberRepository memberRepository) {
+        this.txExecutor = txExecutor;
+        this.memberRepository = memberRepository;
+    }
+
+    // 요청 순서대로 결과 리턴
+    public List<TransferOutcome> transferAll(List<TransferRequest> requests) {
+        return txExecutor.execute(status -> {
+            List<TransferOutcome> outcomes = new ArrayList<>(requests.size());
+            Map<String, Integer> deltas = net(requests, outcomes);
+
+            try {
+                memberRepository.applyDeltas(deltas);
+            } catch (InsufficientMoneyException e) {
+                // 메모리 검증은 통과했으므로 조회 이후 다른 트랜잭션이 잔액을 바꾼 것
+                throw new OptimisticLockingFailureException("balance changed during batch transfer", e);
+            } catch (DataIntegrityViolationException e) {
+                if (TransferOutcome.reasonOf(e) != RejectReason.MONEY_OUT_OF_RANGE) {
+                    throw e;
+                }
+                // 메모리 검증에서 반영 후 잔액이 모두 int 범위였으므로 이것도 조회 이후 다른 트랜잭션의 입금
+                throw new OptimisticLockingFailureException("balance changed during batch transfer (money out of range)", e);
+            }
+
+            log.info("[BatchTransferService.transferAll] requests={}, accepted={}, updates={}",
+                    requests.size(), outcomes.stream().filter(TransferOutcome::isAccepted).count(), deltas.size());
+            return outcomes;
+        });
+    }
+
+    // 요청을 순서대로 검증해 outcomes에 결과를 채우고, 0이 아닌 계좌별 순변동을 member_id 순으로 리턴 (락 순서 고정)
+    private Map<String, Integer> net(List<TransferRequest> requests, List<TransferOutcome> outcomes) {
+        Set<String> memberIds = new HashSet<>();
+        for (TransferRequest request : requests) {
+            memberIds.add(request.getFromId());
+            memberIds.add(request.getToId());
+        }
+
+        Map<String, Long> balances = new HashMap<>();
+        for (Member member : memberRepository.findByIds(memberIds).values()) {
+            balances.put(member.getMemberId(), (long) member.getMoney());
+        }
+        Map<String, Long> initial = new HashMap<>(balances);
+
+        for (TransferRequest request : requests) {
+            RejectReason reason = validate(request, balances);
+            if (reason != null) {
+                outcomes.add(TransferOutcome.rejected(request, reason));
+                continue;
+            }
+            balances.merge(request.getFromId(), (long) -request.getAmount(), Long::sum);
+            balances.merge(request.getToId(), (long) request.getAmount(), Long::sum);
+            outcomes.add(TransferOutcome.accepted(request));
+        }
+
+        // 잔액이 모두 [0, Integer.MAX_VALUE] 안이므로 순변동도 int 범위
+        Map<String, Integer> deltas = new TreeMap<>();
+        balances.forEach((memberId, balance) -> {
+            long delta = balance - initial.get(memberId);
+            if (delta != 0) {
+                deltas.put(memberId, (int) delta);
+            }
+        });
+        return deltas;
+    }
+
+    private static RejectReason validate(TransferRequest request, Map<String, Long> balances) {
+        if (request.getFromId() == null || request.getToId() == null
+                || request.getAmount() <= 0 || request.getFromId().equals(request.getToId())) {
+            return RejectReason.INVALID_REQUEST;
+        }
+
+        Long fromBalance = balances.get(request.getFromId());
+        Long toBalance = balances.get(request.getToId());
+        if (fromBalance == null || toBalance == null) {
+            return RejectReason.MEMBER_NOT_FOUND;
+        }
+        if (fromBalance < request.getAmount()) {
+            return RejectReason.INSUFFICIENT_MONEY;
+        }
+        if (toBalance + request.getAmount() > Integer.MAX_VALUE) {
+            return RejectReason.MONEY_OUT_OF_RANGE;
+        }
+        return null;
+    }
+
+}
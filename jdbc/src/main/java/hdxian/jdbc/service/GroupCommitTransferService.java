@@ -0,0 +1,237 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 그룹 커밋 이체 - 동시에 들어온 이체 여러 건을 한 트랜잭션으로 묶어 커밋 1번
+ * accountTransfer()마다 커밋(DB 서버 왕복 + 로그 flush)하는 대신, 묶음당 커밋 1번
+ *
+ * - 호출 스레드는 요청을 큐에 넣고 CompletableFuture를 받음
+ * - writer 스레드 하나가 큐에서 최대 maxBatchSize건을 꺼냄 (첫 요청 이후 최대 maxLingerMillis까지 더 기다림)
+ * - 묶음을 한 트랜잭션(REQUIRED)에서 실행. 이체마다 SavepointTransferService.transferInSavepoint() -> 실패한 이체만 savepoint로 롤백, 나머지는 그대로
+ * - 커밋 후 각 future 완료. 커밋이 실패하면 묶음의 모든 future를 그 예외로 실패 처리
+ *   future는 writer 스레드가 아니라 CompletableFuture의 기본 executor에서 완료 -> 호출한 쪽의 콜백(thenApply 등)이 writer를 붙잡지 않음
+ * - writer 스레드에서 Error가 나면 묶음의 future를 실패 처리하고 writer 종료 (이후 요청은 거절)
+ *
+ * 이체는 호출한 스레드의 트랜잭션이 아니라 writer 스레드의 트랜잭션에서 실행됨 -> 호출한 쪽이 롤백해도 이체는 되돌려지지 않음
+ * 묶음의 행 락은 커밋까지 유지되므로, 같은 계좌를 쓰는 다른 트랜잭션은 최대 묶음 하나 실행 시간만큼 기다릴 수 있음
+ *
+ * NESTED를 지원하는 트랜잭션 매니저가 필요 (DataSourceTransactionManager. MemoryTransactionManager는 지원하지 않음)
+ * 종료: close()에서 새 요청을 거절하고, 큐에 남은 요청을 모두 처리한 뒤 writer 스레드 종료 (future 완료는 close() 리턴 후일 수 있음)
+ */
+@Slf4j
+public class GroupCommitTransferService implements AutoCloseable {
+
+    private static final long IDLE_POLL_MILLIS = 100; // 큐가 비었을 때 close() 여부를 확인하는 간격
+
+    private final SavepointTransferService savepointTransferService;
+    private final TransactionTemplate groupTemplate;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+
+    private final BlockingQueue<PendingTransfer> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final LongAdder groupCount = new LongAdder();
+    private final LongAdder transferCount = new LongAdder();
+
+    public GroupCommitTransferService(PlatformTransactionManager transactionManager, MemberRepository memberRepository,
+                                      int maxBatchSize, long maxLingerMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: maxBatchSize=" + maxBatchSize);
+        }
+        if (maxLingerMillis < 0) {
+            throw new IllegalArgumentException("maxLingerMillis must not be negative: maxLingerMillis=" + maxLingerMillis);
+        }
+
+        this.savepointTransferService = new SavepointTransferService(transactionManager, memberRepository);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+
+        this.groupTemplate = new TransactionTemplate(transactionManager);
+
+        this.writer = new Thread(this::run, "group-commit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // 이체 요청. 묶음이 커밋된 후 완료됨 (이체 실패, 커밋 실패 시 예외로 완료)
+    public CompletableFuture<TransferResult> submit(String fromId, String toId, int amount) {
+        PendingTransfer pending = new PendingTransfer(new TransferRequest(fromId, toId, amount));
+        if (closed) {
+            pending.future.completeExceptionally(new IllegalStateException("GroupCommitTransferService is closed"));
+            return pending.future;
+        }
+
+        queue.add(pending);
+        // 넣는 사이에 close()되어 writer가 이미 끝났을 수 있음 -> 아직 큐에 있으면 꺼내서 거절
+        if (closed && queue.remove(pending)) {
+            pending.future.completeExceptionally(new IllegalStateException("GroupCommitTransferService is closed"));
+        }
+        return pending.future;
+    }
+
+    // submit() 후 커밋까지 기다림. 예외는 accountTransfer()와 같은 타입으로 던짐
+    public TransferResult accountTransfer(String fromId, String toId, int amount) {
+        try {
+            return submit(fromId, toId, amount).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // 새 요청을 거절하고 큐에 남은 요청을 처리한 뒤 리턴
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 커밋한 묶음 수
+    public long getGroupCount() {
+        return groupCount.sum();
+    }
+
+    // 묶음으로 처리한 이체 수 (실패 포함)
+    public long getTransferCount() {
+        return transferCount.sum();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                List<PendingTransfer> group;
+                try {
+                    group = nextGroup();
+                } catch (InterruptedException e) {
+                    log.warn("[GroupCommitTransferService.run] interrupted, pending={}", queue.size());
+                    break;
+                }
+
+                if (group.isEmpty()) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+                commit(group);
+            }
+        } finally {
+            // 인터럽트나 Error로 끝났다면 남은 요청이 있을 수 있음 -> 새 요청도 거절
+            closed = true;
+            PendingTransfer pending;
+            while ((pending = queue.poll()) != null) {
+                completeExceptionally(pending, new IllegalStateException("GroupCommitTransferService is closed"));
+            }
+        }
+    }
+
+    // 첫 요청을 기다린 뒤, 그때부터 maxLinger 동안 maxBatchSize까지 모음. 큐가 계속 비어 있으면 빈 목록
+    private List<PendingTransfer> nextGroup() throws InterruptedException {
+        List<PendingTransfer> group = new ArrayList<>();
+        PendingTransfer first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return group;
+        }
+        group.add(first);
+
+        long deadline = System.nanoTime() + maxLingerNanos;
+        while (group.size() < maxBatchSize) {
+            queue.drainTo(group, maxBatchSize - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= maxBatchSize || remaining <= 0 || closed) {
+                break;
+            }
+            PendingTransfer next;
+            try {
+                next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // 이미 꺼낸 요청은 처리하고, 다음 nextGroup()에서 종료
+                break;
+            }
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+        }
+        return group;
+    }
+
+    private void commit(List<PendingTransfer> group) {
+        try {
+            groupTemplate.executeWithoutResult(status -> {
+                for (PendingTransfer pending : group) {
+                    try {
+                        pending.result = savepointTransferService.transferInSavepoint(pending.request);
+                    } catch (RuntimeException e) {
+                        pending.error = e; // savepoint까지 롤백됨, 묶음은 계속 진행
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            failGroup(group, e);
+            return;
+        } catch (Error e) {
+            failGroup(group, e);
+            throw e; // writer 종료
+        }
+
+        groupCount.increment();
+        transferCount.add(group.size());
+        log.info("[GroupCommitTransferService.commit] size={}", group.size());
+        for (PendingTransfer pending : group) {
+            if (pending.error != null) {
+                completeExceptionally(pending, pending.error);
+            } else {
+                pending.future.completeAsync(() -> pending.result);
+            }
+        }
+    }
+
+    private void failGroup(List<PendingTransfer> group, Throwable e) {
+        log.error("[GroupCommitTransferService.commit] group failed, size={}", group.size(), e);
+        for (PendingTransfer pending : group) {
+            completeExceptionally(pending, pending.error != null ? pending.error : e);
+        }
+    }
+
+    // writer 스레드에서 완료하지 않음 (completeAsync()와 같은 기본 executor)
+    private static void completeExceptionally(PendingTransfer pending, Throwable e) {
+        pending.future.defaultExecutor().execute(() -> pending.future.completeExceptionally(e));
+    }
+
+    // 큐에 들어간 요청 하나. result, error는 writer 스레드만 씀
+    private static final class PendingTransfer {
+
+        final TransferRequest request;
+        final CompletableFuture<TransferResult> future = new CompletableFuture<>();
+        TransferResult result;
+        RuntimeException error;
+
+        PendingTransfer(TransferRequest request) {
+            this.request = request;
+        }
+
+    }
+
+}
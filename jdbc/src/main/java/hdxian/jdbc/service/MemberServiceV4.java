@@ -2,7 +2,7 @@ package hdxian.jdbc.service;
 
 import hdxian.jdbc.domain.Member;
 import hdxian.jdbc.repository.MemberRepository;
-import lombok.RequiredArgsConstructor;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,30 +13,92 @@ import org.springframework.transaction.annotation.Transactional;
  */
 
 @Slf4j
-@RequiredArgsConstructor
 public class MemberServiceV4 {
 
     private final MemberRepository memberRepository;
+    private final RetryingTransactionExecutor txExecutor; // null이면 accountTransferWithRetry() 사용 불가
+
+    public MemberServiceV4(MemberRepository memberRepository) {
+        this(memberRepository, null);
+    }
+
+    public MemberServiceV4(MemberRepository memberRepository, RetryingTransactionExecutor txExecutor) {
+        this.memberRepository = memberRepository;
+        this.txExecutor = txExecutor;
+    }
 
     // 이 메서드는 트랜잭션을 적용해서 실행된다.
     // -> AOP 적용 대상이 되어 스프링 컨테이너에 프록시 객체가 생성되고, 프록시 객체에는 트랜잭션을 수행하는 코드가 추가된다.
     // 앞으로 스프링 컨테이너에서 이 MemberService가 주입되는 곳에는 모두 프록시 객체가 대신 주입된다.
     @Transactional
-    public void accountTransfer(String fromId, String toId, int amount) {
-        bizLogic(fromId, toId, amount);
+    public TransferResult accountTransfer(String fromId, String toId, int amount) {
+        return bizLogic(fromId, toId, amount);
+    }
+
+    /**
+     * accountTransfer() + 일시적 오류(락 타임아웃, 데드락 등 TransientDataAccessException) 재시도
+     * 재시도마다 트랜잭션 전체를 새로 실행해야 하므로 @Transactional을 붙이지 않고 txExecutor가 트랜잭션을 시작한다.
+     * (@Transactional 메서드 안에서 재시도하면 이미 롤백 전용이 된 같은 트랜잭션을 계속 사용하게 됨)
+     */
+    public TransferResult accountTransferWithRetry(String fromId, String toId, int amount) {
+        if (txExecutor == null) {
+            throw new IllegalStateException("RetryingTransactionExecutor is not configured");
+        }
+        return txExecutor.execute(status -> bizLogic(fromId, toId, amount));
+    }
+
+    // 조회 후 절대값을 쓰는 대신(findById x2 + update x2) 상대값 update 2번으로 이체
+    // 잔액 검사는 출금 update문의 where절에서 수행 -> 동시 이체 시 갱신 분실(lost update) 없음
+    // 트랜잭션은 호출한 쪽이 시작 (SavepointTransferService도 savepoint 안에서 이 메서드로 이체)
+    TransferResult bizLogic(String fromId, String toId, int amount) {
+        if (amount <= 0) // 음수 금액은 출금 잔액 검사를 우회하므로 허용하지 않음
+            throw new IllegalArgumentException("amount must be positive: amount=" + amount);
+        if (fromId.equals(toId))
+            throw new IllegalArgumentException("fromId and toId must be different: memberId=" + fromId);
+
+        Member fromMember = memberRepository.withdraw(fromId, amount);
+        validation(toId); // toId가 ex면 예외 발생 (테스트용)
+        Member toMember = memberRepository.deposit(toId, amount);
+
+        // 각 update문이 돌려준 변경 후 잔액 -> 추가 조회 없음
+        return new TransferResult(fromId, fromMember.getMoney(), toId, toMember.getMoney());
     }
 
-    private void bizLogic(String fromId, String toId, int amount) {
-        Member fromMember = memberRepository.findById(fromId);
-        Member toMember = memberRepository.findById(toId);
+    /**
+     * 비관적 락 이체
+     * 두 회원의 행을 member_id 순서로 select ... for update 한 뒤, 락을 잡은 상태에서 잔액을 검사하고 변경한다.
+     * 모든 이체가 같은 순서로 락을 잡으므로 A -> B, B -> A 이체가 동시에 실행되어도 서로의 락을 기다리는 순환(데드락)이 생기지 않음
+     * (accountTransfer()는 출금 행, 입금 행 순서로 락을 잡으므로 반대 방향 이체가 동시에 실행되면 데드락이 날 수 있음)
+     */
+    @Transactional
+    public TransferResult accountTransferLocked(String fromId, String toId, int amount) {
+        if (amount <= 0)
+            throw new IllegalArgumentException("amount must be positive: amount=" + amount);
+        if (fromId.equals(toId))
+            throw new IllegalArgumentException("fromId and toId must be different: memberId=" + fromId);
+
+        // 정해진 순서(member_id 오름차순)로 락
+        boolean fromFirst = fromId.compareTo(toId) < 0;
+        Member first = memberRepository.findByIdForUpdate(fromFirst ? fromId : toId);
+        Member second = memberRepository.findByIdForUpdate(fromFirst ? toId : fromId);
+        Member fromMember = fromFirst ? first : second;
+        Member toMember = fromFirst ? second : first;
+
+        if (fromMember.getMoney() < amount)
+            throw new InsufficientMoneyException("not enough money: memberId=" + fromId);
+
+        // 락을 잡고 있으므로 조회한 값 기준으로 절대값 update해도 갱신 분실 없음
+        int fromMoney = fromMember.getMoney() - amount;
+        int toMoney = Math.addExact(toMember.getMoney(), amount);
+        memberRepository.update(fromId, fromMoney);
+        validation(toId);
+        memberRepository.update(toId, toMoney);
 
-        memberRepository.update(fromId, fromMember.getMoney() - amount);
-        validation(toMember); // toMember의 memberId가 ex면 예외 발생 (테스트용)
-        memberRepository.update(toId, toMember.getMoney() + amount);
+        return new TransferResult(fromId, fromMoney, toId, toMoney);
     }
 
-    private static void validation(Member toMember) {
-        if (toMember.getMemberId().equals("ex"))
+    private static void validation(String toId) {
+        if (toId.equals("ex"))
             throw new IllegalStateException("an Error occurs in validation()");
     }
 
@@ -0,0 +1,67 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * V5 - 낙관적 락 이체 (version 컬럼)
+ * 두 회원을 락 없이 조회하고, 조회했을 때의 version으로 update(memberId, money, version)
+ * 그 사이 다른 트랜잭션이 변경했으면 OptimisticLockingFailureException -> 트랜잭션을 롤백하고 처음부터 다시 시도
+ *
+ * - 조회와 쓰기 사이에 행 락을 잡지 않음 (accountTransferLocked()와 비교) -> 충돌이 드문 계좌에서 락 대기 없음
+ * - 충돌이 잦은 계좌에서는 재시도가 늘어나므로 MemberServiceV4의 상대값/비관적 락 이체가 낫다
+ * - 재시도는 RetryingTransactionExecutor (OptimisticLockingFailureException은 TransientDataAccessException)
+ *   -> 재시도마다 새 트랜잭션이 필요하므로 @Transactional 대신 트랜잭션을 직접 시작 (V3_2의 TransactionTemplate과 같은 방식)
+ */
+@Slf4j
+public class MemberServiceV5 {
+
+    private final RetryingTransactionExecutor txExecutor;
+    private final MemberRepository memberRepository;
+
+    public MemberServiceV5(PlatformTransactionManager transactionManager, MemberRepository memberRepository) {
+        this(new RetryingTransactionExecutor(transactionManager), memberRepository);
+    }
+
+    public MemberServiceV5(RetryingTransactionExecutor txExecutor, MemberRepository memberRepository) {
+        this.txExecutor = txExecutor;
+        this.memberRepository = memberRepository;
+    }
+
+    // 재시도 한도(횟수, 예산)를 넘으면 마지막 OptimisticLockingFailureException을 그대로 던짐
+    public TransferResult accountTransfer(String fromId, String toId, int amount) {
+        if (amount <= 0)
+            throw new IllegalArgumentException("amount must be positive: amount=" + amount);
+        if (fromId.equals(toId))
+            throw new IllegalArgumentException("fromId and toId must be different: memberId=" + fromId);
+
+        return txExecutor.execute(status -> bizLogic(fromId, toId, amount));
+    }
+
+    private TransferResult bizLogic(String fromId, String toId, int amount) {
+        Member fromMember = memberRepository.findById(fromId);
+        Member toMember = memberRepository.findById(toId);
+
+        if (fromMember.getMoney() < amount)
+            throw new InsufficientMoneyException("not enough money: memberId=" + fromId);
+
+        int fromMoney = fromMember.getMoney() - amount;
+        int toMoney = Math.addExact(toMember.getMoney(), amount);
+
+        // 조회한 version과 다르면 (그 사이 변경됨) 예외 -> 트랜잭션 롤백 후 재시도
+        memberRepository.update(fromId, fromMoney, fromMember.getVersion());
+        validation(toId); // toId가 ex면 예외 발생 (테스트용)
+        memberRepository.update(toId, toMoney, toMember.getVersion());
+
+        return new TransferResult(fromId, fromMoney, toId, toMoney);
+    }
+
+    private static void validation(String toId) {
+        if (toId.equals("ex"))
+            throw new IllegalStateException("an Error occurs in validation()");
+    }
+
+}
@@ -0,0 +1,104 @@
+package hdxian.jdbc.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 계좌가 겹치지 않는 이체를 병렬로 실행하는 스케줄러
+ * 이체 목록을 wave로 나누고, wave 안의 이체(서로 계좌가 겹치지 않음)를 ForkJoinPool에서 동시에 실행한다.
+ * 이체 하나는 MemberServiceV4.accountTransfer() 트랜잭션 하나. wave가 모두 끝나야 다음 wave 시작
+ *
+ * wave 배정 (요청 순서대로 greedy coloring)
+ *   wave(i) = max(from 계좌의 마지막 wave, to 계좌의 마지막 wave) + 1
+ * - 같은 wave의 이체는 계좌가 겹치지 않음 -> 서로의 행 락을 기다리지 않고, 데드락도 없음
+ * - 같은 계좌의 이체는 요청 순서대로 서로 다른 wave에서 실행 -> 결과(수락/거절, 최종 잔액)가 한 건씩 순서대로 실행한 것과 같음
+ *
+ * ForkJoinPool의 병렬도는 커넥션 풀 크기 이하로 (이체마다 커넥션 하나를 잡고 블로킹)
+ * memberService는 스프링 빈(프록시)을 주입해야 함 -> accountTransfer()의 @Transactional이 적용됨
+ */
+@Slf4j
+public class ParallelTransferScheduler implements AutoCloseable {
+
+    private final MemberServiceV4 memberService;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool; // 직접 만든 pool만 close()에서 종료
+
+    public ParallelTransferScheduler(MemberServiceV4 memberService, int parallelism) {
+        this(memberService, new ForkJoinPool(parallelism), true);
+    }
+
+    public ParallelTransferScheduler(MemberServiceV4 memberService, ForkJoinPool pool) {
+        this(memberService, pool, false);
+    }
+
+    private ParallelTransferScheduler(MemberServiceV4 memberService, ForkJoinPool pool, boolean ownsPool) {
+        this.memberService = memberService;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    // 요청 순서대로 결과 리턴. 실패한 이체는 롤백되고 결과에 예외가 담김 (다른 이체는 계속 실행)
+    public List<TransferOutcome> transferAll(List<TransferRequest> requests) {
+        TransferOutcome[] outcomes = new TransferOutcome[requests.size()];
+        List<List<Integer>> waves = waves(requests);
+
+        for (List<Integer> wave : waves) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(wave.size());
+            for (int index : wave) {
+                TransferRequest request = requests.get(index);
+                tasks.add(pool.submit(() -> outcomes[index] = transfer(request)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join(); // transfer()는 예외를 던지지 않음
+            }
+        }
+
+        log.info("[ParallelTransferScheduler.transferAll] requests={}, waves={}, parallelism={}",
+                requests.size(), waves.size(), pool.getParallelism());
+        return Arrays.asList(outcomes);
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    // 요청 index를 wave별로 묶음 (wave 안은 요청 순서)
+    static List<List<Integer>> waves(List<TransferRequest> requests) {
+        Map<String, Integer> lastWave = new HashMap<>(); // 계좌 -> 그 계좌를 마지막으로 사용한 wave
+        List<List<Integer>> waves = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            int wave = Math.max(lastWave.getOrDefault(request.getFromId(), -1), lastWave.getOrDefault(request.getToId(), -1)) + 1;
+            lastWave.put(request.getFromId(), wave);
+            lastWave.put(request.getToId(), wave);
+
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(i);
+        }
+        return waves;
+    }
+
+    private TransferOutcome transfer(TransferRequest request) {
+        try {
+            memberService.accountTransfer(request.getFromId(), request.getToId(), request.getAmount());
+            return TransferOutcome.accepted(request);
+        } catch (RuntimeException e) {
+            log.info("[ParallelTransferScheduler.transfer] failed, request={}, ex={}", request, e.toString());
+            return TransferOutcome.failed(request, e);
+        }
+    }
+
+}
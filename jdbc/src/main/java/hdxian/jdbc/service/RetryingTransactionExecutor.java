@@ -0,0 +1,171 @@
+package hdxian.jdbc.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 일시적인 오류로 실패한 트랜잭션을 처음부터 다시 실행하는 TransactionTemplate
+ * 락 타임아웃, 데드락, 직렬화 실패, 낙관적 락 충돌은 SQLErrorCodeSQLExceptionTranslator 등에 의해
+ * TransientDataAccessException(CannotAcquireLockException, DeadlockLoserDataAccessException, OptimisticLockingFailureException ...)으로 변환된다.
+ * -> 같은 작업을 다시 실행하면 성공할 수 있으므로 롤백 후 새 트랜잭션에서 재시도
+ *
+ * - TransientDataAccessException만 재시도. 그 외(validation() 실패, 잔액 부족, 중복 키 등)는 다시 해도 같으므로 바로 던짐
+ * - 재시도 사이 대기: 지수 증가(initialBackoff * 2^n, 최대 maxBackoff) + full jitter
+ * - 재시도 예산(token bucket): 호출마다 budgetRatio만큼 적립, 재시도마다 1개 사용. 부족하면 재시도하지 않고 포기
+ *   -> DB가 계속 실패하는 상황에서 모든 호출이 maxAttempts배로 부하를 늘리는 것(retry storm)을 막음
+ * - 이미 진행 중인 트랜잭션 안에서 호출하면 재시도하지 않음 (참여한 트랜잭션은 롤백 전용이 되어 다시 실행해도 커밋할 수 없음)
+ */
+@Slf4j
+public class RetryingTransactionExecutor {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 5;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 100;
+    public static final double DEFAULT_BUDGET_RATIO = 0.2; // 호출 5번당 재시도 1번
+    public static final int DEFAULT_BUDGET_CAPACITY = 100;
+
+    private static final long TOKEN = 1000; // 예산을 정수로 다루기 위한 단위 (1 재시도 = 1000)
+
+    private final TransactionTemplate txTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long budgetDeposit;
+    private final long budgetCapacity;
+
+    private final AtomicLong budget;
+
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder giveUpCount = new LongAdder();
+    private final LongAdder budgetExhaustedCount = new LongAdder();
+
+    public RetryingTransactionExecutor(PlatformTransactionManager transactionManager) {
+        this(transactionManager, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    public RetryingTransactionExecutor(PlatformTransactionManager transactionManager,
+                                       int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        this(transactionManager, maxAttempts, initialBackoffMillis, maxBackoffMillis, DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_CAPACITY);
+    }
+
+    public RetryingTransactionExecutor(PlatformTransactionManager transactionManager,
+                                       int maxAttempts, long initialBackoffMillis, long maxBackoffMillis,
+                                       double budgetRatio, int budgetCapacity) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: maxAttempts=" + maxAttempts);
+        }
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("invalid backoff: initial=" + initialBackoffMillis + ", max=" + maxBackoffMillis);
+        }
+        if (budgetRatio < 0 || budgetCapacity < 0) {
+            throw new IllegalArgumentException("invalid retry budget: ratio=" + budgetRatio + ", capacity=" + budgetCapacity);
+        }
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.budgetDeposit = Math.round(budgetRatio * TOKEN);
+        this.budgetCapacity = budgetCapacity * TOKEN;
+        this.budget = new AtomicLong(this.budgetCapacity); // 처음엔 가득 찬 상태 (호출이 적을 때도 재시도 가능)
+    }
+
+    // action을 트랜잭션 안에서 실행. 일시적 오류면 롤백 후 새 트랜잭션에서 action을 다시 실행
+    // 포기하면 마지막 예외를 그대로 던짐
+    public <T> T execute(TransactionCallback<T> action) {
+        return retry(() -> txTemplate.execute(action));
+    }
+
+    /**
+     * execute()와 같은 재시도 정책(횟수, 대기, 예산)으로 attempt를 다시 실행. 트랜잭션은 attempt가 직접 시작해야 함
+     * -> 트랜잭션 바깥의 자원(JVM 락 등)도 시도마다 잡고 놓게 할 수 있음 (재시도 대기 중에는 아무것도 잡고 있지 않음)
+     */
+    public <T> T retry(Supplier<T> attempt) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.info("[RetryingTransactionExecutor.retry] already in transaction, no retry");
+            return attempt.get();
+        }
+
+        depositBudget();
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.get();
+            } catch (TransientDataAccessException e) {
+                if (attempts >= maxAttempts) {
+                    giveUpCount.increment();
+                    log.info("[RetryingTransactionExecutor.retry] give up after attempts={}, ex={}", attempts, e.toString());
+                    throw e;
+                }
+                if (!withdrawBudget()) {
+                    giveUpCount.increment();
+                    budgetExhaustedCount.increment();
+                    log.info("[RetryingTransactionExecutor.retry] retry budget exhausted, attempts={}, ex={}", attempts, e.toString());
+                    throw e;
+                }
+                retryCount.increment();
+                log.info("[RetryingTransactionExecutor.retry] transient failure, retry attempt={}, ex={}", attempts, e.toString());
+                backoff(attempts, e);
+            }
+        }
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    // maxAttempts를 다 썼거나 예산이 부족해서 포기한 호출 수
+    public long getGiveUpCount() {
+        return giveUpCount.sum();
+    }
+
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.sum();
+    }
+
+    // 남은 재시도 예산 (재시도 횟수 단위)
+    public double getRemainingBudget() {
+        return (double) budget.get() / TOKEN;
+    }
+
+    private void depositBudget() {
+        if (budgetDeposit == 0) {
+            return;
+        }
+        budget.getAndUpdate(current -> Math.min(budgetCapacity, current + budgetDeposit));
+    }
+
+    private boolean withdrawBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    // full jitter: [0, min(maxBackoff, initialBackoff * 2^(attempt-1))] 사이에서 무작위로 대기
+    private void backoff(int attempt, TransientDataAccessException cause) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // 인터럽트 상태를 유지하고 재시도 중단
+            throw cause;
+        }
+    }
+
+}
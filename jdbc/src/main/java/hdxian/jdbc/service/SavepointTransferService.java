@@ -0,0 +1,69 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * savepoint 단위 부분 롤백 대량 이체
+ * 대량 이체를 한 트랜잭션에서 실행하되 이체마다 savepoint(NESTED)를 둔다.
+ * 한 건이 실패(validation(), 잔액 부족 등)하면 그 이체만 savepoint까지 롤백하고 나머지는 커밋
+ * -> 잘못된 요청 한 건 때문에 묶음 전체를 롤백하고 다시 실행하지 않음
+ *
+ * 이체 로직은 MemberServiceV4.accountTransfer()와 같은 bizLogic() (상대값 출금 -> validation() -> 상대값 입금)
+ * @Transactional 프록시(accountTransfer())를 savepoint 안에서 호출하면 실패 시 참여한 트랜잭션 전체가 rollback-only로 표시되어
+ * 커밋할 때 UnexpectedRollbackException이 남 -> 프록시가 아닌 MemberServiceV4의 bizLogic()을 직접 호출
+ *
+ * NESTED를 지원하는 트랜잭션 매니저가 필요 (DataSourceTransactionManager. MemoryTransactionManager는 지원하지 않음)
+ * 묶음의 행 락은 커밋까지 유지됨 -> 아주 큰 묶음은 나눠서 호출
+ */
+@Slf4j
+public class SavepointTransferService {
+
+    private final MemberServiceV4 transferLogic; // 프록시 아님 (트랜잭션은 savepointTemplate)
+    private final TransactionTemplate txTemplate;
+    private final TransactionTemplate savepointTemplate;
+
+    public SavepointTransferService(PlatformTransactionManager transactionManager, MemberRepository memberRepository) {
+        this.transferLogic = new MemberServiceV4(memberRepository);
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    // 요청 순서대로 실행하고 결과 리턴. 수락된 이체만 커밋됨 (커밋이 실패하면 예외, 전부 롤백)
+    public List<TransferOutcome> transferAll(List<TransferRequest> requests) {
+        List<TransferOutcome> outcomes = txTemplate.execute(status -> {
+            List<TransferOutcome> result = new ArrayList<>(requests.size());
+            for (TransferRequest request : requests) {
+                try {
+                    transferInSavepoint(request);
+                    result.add(TransferOutcome.accepted(request));
+                } catch (RuntimeException e) {
+                    log.info("[SavepointTransferService.transferAll] rolled back to savepoint, request={}, ex={}", request, e.toString());
+                    result.add(TransferOutcome.failed(request, e));
+                }
+            }
+            return result;
+        });
+
+        log.info("[SavepointTransferService.transferAll] requests={}, accepted={}",
+                requests.size(), outcomes.stream().filter(TransferOutcome::isAccepted).count());
+        return outcomes;
+    }
+
+    /**
+     * 이체 한 건을 savepoint 안에서 실행. 실패하면 savepoint까지 롤백하고 예외 (바깥 트랜잭션은 계속 사용 가능)
+     * 트랜잭션 안에서 호출해야 부분 롤백이 됨 (트랜잭션 밖이면 이체 한 건짜리 트랜잭션)
+     */
+    public TransferResult transferInSavepoint(TransferRequest request) {
+        return savepointTemplate.execute(status ->
+                transferLogic.bizLogic(request.getFromId(), request.getToId(), request.getAmount()));
+    }
+
+}
@@ -0,0 +1,40 @@
+package hdxian.jdbc.service;
+
+/**
+ * 인기 계좌 이체용 - AccountLockManager로 같은 계좌의 이체를 줄 세운 뒤 MemberServiceV4로 이체
+ * 락 획득 -> 트랜잭션 시작(커넥션 획득) -> 커밋(커넥션 반환) -> 락 해제 순서
+ * -> 커넥션은 실제로 진행할 수 있는 이체만 잡고 있음. 나머지는 커넥션 없이 JVM 락에서 대기
+ *
+ * memberService는 스프링 빈(프록시)을 주입해야 함 -> accountTransfer()의 @Transactional이 적용됨
+ */
+public class StripedLockTransferService {
+
+    private final AccountLockManager lockManager;
+    private final MemberServiceV4 memberService;
+    private final RetryingTransactionExecutor txExecutor; // null이면 accountTransferWithRetry() 사용 불가
+
+    public StripedLockTransferService(AccountLockManager lockManager, MemberServiceV4 memberService) {
+        this(lockManager, memberService, null);
+    }
+
+    public StripedLockTransferService(AccountLockManager lockManager, MemberServiceV4 memberService,
+                                      RetryingTransactionExecutor txExecutor) {
+        this.lockManager = lockManager;
+        this.memberService = memberService;
+        this.txExecutor = txExecutor;
+    }
+
+    public TransferResult accountTransfer(String fromId, String toId, int amount) {
+        return lockManager.executeLocked(fromId, toId, () -> memberService.accountTransfer(fromId, toId, amount));
+    }
+
+    // 일시적 오류(DB 락 타임아웃, 데드락, JVM 락 타임아웃 등)면 재시도
+    // 시도마다 락을 잡고 놓음 -> 재시도 대기(backoff) 중에는 락을 잡고 있지 않아 같은 계좌의 다른 이체가 먼저 진행됨
+    public TransferResult accountTransferWithRetry(String fromId, String toId, int amount) {
+        if (txExecutor == null) {
+            throw new IllegalStateException("RetryingTransactionExecutor is not configured");
+        }
+        return txExecutor.retry(() -> accountTransfer(fromId, toId, amount));
+    }
+
+}
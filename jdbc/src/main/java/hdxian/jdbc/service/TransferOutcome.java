@@ -0,0 +1,83 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+/**
+ * BatchTransferService, ParallelTransferScheduler, SavepointTransferService의 요청 단위 결과
+ * 수락되면 rejectReason == null, 거절되면 사유. 거절된 요청은 잔액에 반영되지 않음
+ * 이체 실행 중 예외로 거절되었으면 error에 예외 (그 외에는 null)
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransferOutcome {
+
+    private static final String NUMERIC_VALUE_OUT_OF_RANGE = "22003";
+
+    TransferRequest request;
+    RejectReason rejectReason;
+    RuntimeException error;
+
+    public static TransferOutcome accepted(TransferRequest request) {
+        return new TransferOutcome(request, null, null);
+    }
+
+    public static TransferOutcome rejected(TransferRequest request, RejectReason reason) {
+        return new TransferOutcome(request, reason, null);
+    }
+
+    // 이체가 예외로 실패 (이체의 변경은 롤백됨). 사유는 예외 타입으로 분류
+    public static TransferOutcome failed(TransferRequest request, RuntimeException error) {
+        return new TransferOutcome(request, reasonOf(error), error);
+    }
+
+    public boolean isAccepted() {
+        return rejectReason == null;
+    }
+
+    // 예외를 거절 사유로 분류 (BatchTransferService는 배치 반영 실패의 원인 판단에 사용)
+    static RejectReason reasonOf(RuntimeException error) {
+        if (error instanceof InsufficientMoneyException) {
+            return RejectReason.INSUFFICIENT_MONEY;
+        }
+        if (error instanceof EmptyResultDataAccessException || error instanceof NoSuchElementException) {
+            return RejectReason.MEMBER_NOT_FOUND; // 입금 계좌가 없음 (리포지토리 구현에 따라 예외 타입이 다름)
+        }
+        if (error instanceof DataIntegrityViolationException && isNumericOverflow(error)) {
+            return RejectReason.MONEY_OUT_OF_RANGE; // 그 외 무결성 위반(제약 조건 등)은 FAILED
+        }
+        if (error instanceof IllegalArgumentException) {
+            return RejectReason.INVALID_REQUEST;
+        }
+        return RejectReason.FAILED;
+    }
+
+    // 메모리 리포지토리: ArithmeticException(Math.addExact), DB: SQLState 22003 (numeric value out of range)
+    private static boolean isNumericOverflow(Throwable error) {
+        for (Throwable cause = error.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ArithmeticException) {
+                return true;
+            }
+            if (cause instanceof SQLException && NUMERIC_VALUE_OUT_OF_RANGE.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public enum RejectReason {
+        INVALID_REQUEST,    // 금액이 0 이하, id가 null, 같은 계좌
+        MEMBER_NOT_FOUND,
+        INSUFFICIENT_MONEY, // 앞선 수락 이체까지 반영한 잔액보다 큰 금액
+        MONEY_OUT_OF_RANGE, // 입금 계좌 잔액이 int 범위를 넘음
+        FAILED              // 그 밖의 예외 (error 참고)
+    }
+
+}
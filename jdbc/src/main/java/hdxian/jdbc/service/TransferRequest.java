@@ -0,0 +1,15 @@
+package hdxian.jdbc.service;
+
+import lombok.Value;
+
+/**
+ * 이체 요청 하나 (BatchTransferService 입력, ex. 정산 파일의 한 줄)
+ */
+@Value
+public class TransferRequest {
+
+    String fromId;
+    String toId;
+    int amount;
+
+}
@@ -0,0 +1,17 @@
+package hdxian.jdbc.service;
+
+import lombok.Value;
+
+/**
+ * 이체 결과 - 이체 직후 두 계좌의 잔액
+ * 출금/입금 update문이 돌려준 값이므로 이체 후 findById()를 다시 호출할 필요가 없음
+ */
+@Value
+public class TransferResult {
+
+    String fromId;
+    int fromMoney;
+    String toId;
+    int toMoney;
+
+}
@@ -0,0 +1,3 @@
+-- 낙관적 락용 version 컬럼 (MemberRepository.update(memberId, money, version))
+-- 기존 member 테이블에 한 번 실행. insert는 컬럼을 지정하므로 기존 행과 새 행 모두 version 0에서 시작
+alter table member add column if not exists version integer not null default 0;
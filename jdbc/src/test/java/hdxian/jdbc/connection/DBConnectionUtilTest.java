@@ -4,15 +4,17 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class DBConnectionUtilTest {
 
     @Test
-    void connection() {
-        Connection connection = DBConnectionUtil.getConnection();
-        Assertions.assertThat(connection).isNotNull();
+    void connection() throws SQLException {
+        try (Connection connection = DBConnectionUtil.getConnection()) { // 풀에 반납
+            Assertions.assertThat(connection).isNotNull();
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package hdxian.jdbc.connection;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class PreparedStatementCacheTest {
+
+    static final String SQL_1 = "select * from member where member_id = ?";
+    static final String SQL_2 = "update member set money = ? where member_id = ?";
+    static final String SQL_3 = "delete from member where member_id = ?";
+
+    HikariDataSource dataSource;
+    TransactionTemplate txTemplate;
+
+    @BeforeEach
+    void before() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername(USERNAME);
+        dataSource.setPassword(PASSWORD);
+        txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void after() {
+        dataSource.close();
+    }
+
+    @Test
+    void reuseInTransaction() {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        AtomicReference<PreparedStatement> cached = new AtomicReference<>();
+
+        txTemplate.executeWithoutResult(status -> {
+            Connection con = DataSourceUtils.getConnection(dataSource);
+            try {
+                PreparedStatement first = cache.prepareStatement(con, SQL_1, dataSource);
+                cache.closeStatement(con, first); // 캐시된 pstmt는 닫히지 않음
+                PreparedStatement second = cache.prepareStatement(con, SQL_1, dataSource);
+
+                assertThat(second).isSameAs(first);
+                assertThat(second.isClosed()).isFalse();
+                cached.set(second);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                DataSourceUtils.releaseConnection(con, dataSource);
+            }
+        });
+
+        // 트랜잭션 종료 -> 커넥션 반납 전에 캐시 정리
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getCachedConnectionCount()).isZero();
+        assertThat(isClosed(cached.get())).isTrue();
+    }
+
+    @Test
+    void lruPerConnection() {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+
+        txTemplate.executeWithoutResult(status -> {
+            Connection con = DataSourceUtils.getConnection(dataSource);
+            try {
+                PreparedStatement pstmt1 = cache.prepareStatement(con, SQL_1, dataSource);
+                cache.prepareStatement(con, SQL_2, dataSource);
+                cache.prepareStatement(con, SQL_3, dataSource); // SQL_1 제거됨
+
+                assertThat(pstmt1.isClosed()).isTrue();
+                assertThat(cache.prepareStatement(con, SQL_3, dataSource).isClosed()).isFalse();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                DataSourceUtils.releaseConnection(con, dataSource);
+            }
+        });
+    }
+
+    @Test
+    void noCacheOutsideTransaction() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        PreparedStatement pstmt = cache.prepareStatement(con, SQL_1, dataSource);
+        cache.closeStatement(con, pstmt);
+        DataSourceUtils.releaseConnection(con, dataSource);
+
+        // 트랜잭션 밖의 커넥션은 바로 반납되므로 캐시하지 않음
+        assertThat(pstmt.isClosed()).isTrue();
+        assertThat(cache.getCachedConnectionCount()).isZero();
+    }
+
+    private static boolean isClosed(PreparedStatement pstmt) {
+        try {
+            return pstmt.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package hdxian.jdbc.connection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class SimpleConnectionPoolTest {
+
+    SimpleConnectionPool pool;
+
+    @AfterEach
+    void after() {
+        pool.close();
+    }
+
+    @Test
+    void reuseConnection() throws SQLException {
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 2, 1000, 60_000);
+
+        Connection con1 = pool.getConnection();
+        int session1 = sessionId(con1);
+        con1.close(); // 풀에 반납
+
+        Connection con2 = pool.getConnection();
+        log.info("con1={}, con2={}", con1, con2);
+
+        // 같은 물리 커넥션(같은 DB 세션)을 다시 빌려줌
+        assertThat(sessionId(con2)).isEqualTo(session1);
+        assertThat(pool.getActiveCount()).isEqualTo(1);
+        con2.close();
+    }
+
+    @Test
+    void returnedConnectionCannotBeUsed() throws SQLException {
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 1, 1000, 60_000);
+
+        Connection con = pool.getConnection();
+        con.close();
+
+        assertThat(con.isClosed()).isTrue();
+        assertThatThrownBy(con::createStatement).isInstanceOf(SQLException.class);
+    }
+
+    @Test
+    void rollbackOnReturn() throws SQLException {
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 1, 1000, 60_000);
+
+        Connection con1 = pool.getConnection();
+        con1.setAutoCommit(false);
+        con1.close(); // 트랜잭션 도중 반납
+
+        Connection con2 = pool.getConnection();
+        assertThat(con2.getAutoCommit()).isTrue();
+        con2.close();
+    }
+
+    @Test
+    void maxWait() throws SQLException {
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 1, 200, 60_000);
+
+        Connection con = pool.getConnection();
+
+        // 최대 커넥션 수 초과 -> maxWait 후 예외
+        assertThatThrownBy(pool::getConnection).isInstanceOf(SQLTimeoutException.class);
+        con.close();
+    }
+
+    @Test
+    void idleTimeout() throws SQLException, InterruptedException {
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 1, 1000, 100);
+
+        Connection con1 = pool.getConnection();
+        int session1 = sessionId(con1);
+        con1.close();
+
+        Thread.sleep(200); // idleTimeout 경과
+
+        // 오래 쉰 커넥션은 버리고 새 커넥션을 만듦
+        Connection con2 = pool.getConnection();
+        assertThat(sessionId(con2)).isNotEqualTo(session1);
+        assertThat(pool.getIdleCount()).isZero();
+        con2.close();
+    }
+
+    @Test
+    void physicalConnectionNotExposed() throws SQLException {
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 1, 1000, 60_000);
+
+        Connection con = pool.getConnection();
+        PreparedStatement pstmt = con.prepareStatement("select 1");
+        ResultSet rs = pstmt.executeQuery();
+
+        // Statement, ResultSet, unwrap()으로도 프록시만 얻음
+        assertThat(pstmt.getConnection()).isSameAs(con);
+        assertThat(rs.getStatement()).isSameAs(pstmt);
+        assertThat(con.getMetaData().getConnection()).isSameAs(con);
+        assertThat(con.unwrap(Connection.class)).isSameAs(con);
+        assertThat(con.isWrapperFor(Statement.class)).isFalse();
+        assertThatThrownBy(() -> con.unwrap(Statement.class)).isInstanceOf(SQLException.class);
+
+        // Statement에서 얻은 커넥션을 닫아도 풀에 반납
+        rs.close();
+        pstmt.getConnection().close();
+        assertThat(pool.getActiveCount()).isZero();
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void closeStatementsOnReturn() throws SQLException {
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 1, 1000, 60_000);
+
+        Connection con = pool.getConnection();
+        Statement closed = con.createStatement();
+        closed.close(); // 닫은 Statement는 바로 정리됨
+        Statement open = con.createStatement();
+
+        con.close();
+
+        assertThat(closed.isClosed()).isTrue();
+        assertThat(open.isClosed()).isTrue(); // 닫지 않은 Statement는 반납할 때 정리
+    }
+
+    @Test
+    void releaseRacingWithClose() throws Exception {
+        // 반납 중(롤백 중)에 풀이 닫힘 -> 반납이 끝난 뒤 idle에 남지 않고 물리 커넥션도 닫혀야 함
+        CountDownLatch inRollback = new CountDownLatch(1);
+        CountDownLatch closeDone = new CountDownLatch(1);
+        AtomicReference<Connection> physical = new AtomicReference<>();
+        pool = new SimpleConnectionPool(URL, USERNAME, PASSWORD, 1, 1000, 60_000) {
+            @Override
+            protected Connection newConnection() throws SQLException {
+                Connection target = super.newConnection();
+                physical.set(target);
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("rollback")) {
+                                inRollback.countDown();
+                                closeDone.await(5, TimeUnit.SECONDS);
+                            }
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+
+        Connection con = pool.getConnection();
+        con.setAutoCommit(false);
+        CompletableFuture<Void> release = CompletableFuture.runAsync(() -> {
+            try {
+                con.close(); // closed 확인 통과 후 rollback()에서 대기
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(inRollback.await(5, TimeUnit.SECONDS)).isTrue();
+        pool.close();
+        closeDone.countDown();
+        release.get(5, TimeUnit.SECONDS);
+
+        assertThat(pool.getIdleCount()).isZero();
+        assertThat(physical.get().isClosed()).isTrue();
+    }
+
+    private static int sessionId(Connection con) throws SQLException {
+        try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("select session_id()")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+}
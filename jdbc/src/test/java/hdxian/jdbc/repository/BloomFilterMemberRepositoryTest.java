@@ -0,0 +1,115 @@
+package hdxian.jdbc.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.domain.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterMemberRepositoryTest {
+
+    static final String MEMBER_A = "bloomA";
+    static final String MEMBER_B = "bloomB";
+    static final String MEMBER_NONE = "bloomNone";
+
+    HikariDataSource dataSource;
+    MemberRepositoryV5 target;
+    BloomFilterMemberRepository repository;
+
+    @BeforeEach
+    void before() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername(USERNAME);
+        dataSource.setPassword(PASSWORD);
+        MemberSchema.migrate(dataSource); // version 컬럼
+
+        target = new MemberRepositoryV5(dataSource);
+        target.save(new Member(MEMBER_A, 10000)); // 필터를 만들기 전에 저장된 회원
+        repository = BloomFilterMemberRepository.create(target, 10_000, 0.01);
+    }
+
+    @AfterEach
+    void after() {
+        target.delete(MEMBER_A);
+        target.delete(MEMBER_B);
+        dataSource.close();
+    }
+
+    @Test
+    void buildFromTable() {
+        assertThat(repository.existsById(MEMBER_A)).isTrue();
+        assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    void definiteMiss() {
+        assertThat(repository.existsById(MEMBER_NONE)).isFalse();
+        assertThat(repository.findOptionalById(MEMBER_NONE)).isEmpty();
+        assertThat(repository.findByIds(List.of(MEMBER_NONE))).isEmpty();
+
+        assertThat(repository.getDefiniteMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    void findByIdKeepsDelegateException() {
+        // findById는 delegate가 던지는 예외 그대로 (V5: EmptyResultDataAccessException, V4_1: NoSuchElementException)
+        assertThatThrownBy(() -> repository.findById(MEMBER_NONE))
+                .isInstanceOf(EmptyResultDataAccessException.class);
+
+        BloomFilterMemberRepository v4 = BloomFilterMemberRepository.create(new MemberRepositoryV4_1(dataSource), 10_000, 0.01);
+        assertThatThrownBy(() -> v4.findById(MEMBER_NONE))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThat(v4.findById(MEMBER_A).getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    void saveAddsId() {
+        repository.save(new Member(MEMBER_B, 20000));
+
+        assertThat(repository.existsById(MEMBER_B)).isTrue();
+    }
+
+    @Test
+    void rebuildDuringUncommittedSave() {
+        // save 후 커밋 전에 rebuild: 다른 커넥션의 조회는 커밋되지 않은 B를 못 봄 -> 커밋 후 새 필터에 추가되어야 함
+        TransactionTemplate txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        txTemplate.executeWithoutResult(status -> {
+            repository.save(new Member(MEMBER_B, 20000));
+            CompletableFuture.runAsync(repository::rebuild).join();
+        });
+
+        assertThat(repository.existsById(MEMBER_B)).isTrue();
+        assertThat(repository.getDefiniteMissCount()).isZero();
+    }
+
+    @Test
+    void deleteAndRebuild() {
+        repository.delete(MEMBER_A);
+
+        // 블룸 필터에서는 지울 수 없음 -> DB까지 조회한 뒤 false positive로 기록
+        assertThat(repository.existsById(MEMBER_A)).isFalse();
+        assertThatThrownBy(() -> repository.findById(MEMBER_A))
+                .isInstanceOf(EmptyResultDataAccessException.class);
+        assertThat(repository.getFalsePositiveCount()).isEqualTo(2);
+        assertThat(repository.getDeletedSinceBuild()).isEqualTo(1);
+
+        repository.rebuild();
+        assertThat(repository.existsById(MEMBER_A)).isFalse();
+        assertThat(repository.getDefiniteMissCount()).isEqualTo(1);
+        assertThat(repository.getDeletedSinceBuild()).isZero();
+    }
+
+}
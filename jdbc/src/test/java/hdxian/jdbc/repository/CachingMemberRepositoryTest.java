@@ -0,0 +1,195 @@
+package hdxian.jdbc.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.cache.OffHeapMemberCacheStore;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class CachingMemberRepositoryTest {
+
+    static final String MEMBER_A = "cacheA";
+    static final String MEMBER_B = "cacheB";
+    static final String MEMBER_C = "cacheC";
+
+    HikariDataSource dataSource;
+    MemberRepositoryV5 target;
+    CachingMemberRepository repository;
+    TransactionTemplate txTemplate;
+
+    @BeforeEach
+    void before() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername(USERNAME);
+        dataSource.setPassword(PASSWORD);
+        MemberSchema.migrate(dataSource); // version 컬럼
+
+        target = new MemberRepositoryV5(dataSource);
+        repository = new CachingMemberRepository(target, dataSource, 2, 60_000);
+        txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        target.save(new Member(MEMBER_A, 10000));
+        target.save(new Member(MEMBER_B, 20000));
+        target.save(new Member(MEMBER_C, 30000));
+    }
+
+    @AfterEach
+    void after() {
+        target.delete(MEMBER_A);
+        target.delete(MEMBER_B);
+        target.delete(MEMBER_C);
+        dataSource.close();
+    }
+
+    @Test
+    void readThrough() {
+        repository.findById(MEMBER_A);
+        Member member = repository.findById(MEMBER_A);
+
+        assertThat(member.getMoney()).isEqualTo(10000);
+        assertThat(repository.getMissCount()).isEqualTo(1);
+        assertThat(repository.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedMemberIsCopied() {
+        repository.findById(MEMBER_A).setMoney(0);
+
+        // 리턴된 객체를 바꿔도 캐시된 값은 그대로
+        assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    void invalidateOnUpdate() {
+        repository.findById(MEMBER_A);
+        repository.update(MEMBER_A, 5000);
+
+        assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(5000);
+        assertThat(repository.getHitCount()).isZero();
+    }
+
+    @Test
+    void sizeEviction() {
+        repository.findById(MEMBER_A);
+        repository.findById(MEMBER_B);
+        repository.findById(MEMBER_C); // MEMBER_A 제거 (maxSize=2)
+
+        assertThat(repository.size()).isEqualTo(2);
+        assertThat(repository.getEvictionCount()).isEqualTo(1);
+
+        repository.findById(MEMBER_A);
+        assertThat(repository.getMissCount()).isEqualTo(4);
+    }
+
+    @Test
+    void ttlEviction() throws InterruptedException {
+        CachingMemberRepository shortTtl = new CachingMemberRepository(target, dataSource, 10, 10);
+        shortTtl.findById(MEMBER_A);
+        Thread.sleep(50);
+        shortTtl.findById(MEMBER_A);
+
+        assertThat(shortTtl.getHitCount()).isZero();
+        assertThat(shortTtl.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void noPopulateInTransaction() {
+        txTemplate.executeWithoutResult(status -> {
+            repository.update(MEMBER_A, 5000);
+            // 커밋되지 않은 값은 캐시에 들어가지 않음
+            assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(5000);
+            assertThat(repository.size()).isZero();
+            status.setRollbackOnly();
+        });
+
+        assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    void evictAfterCommit() {
+        repository.findById(MEMBER_A);
+
+        txTemplate.executeWithoutResult(status -> {
+            repository.withdraw(MEMBER_A, 1000);
+            assertThat(repository.size()).isZero();
+        });
+
+        assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(9000);
+    }
+
+    @Test
+    void onlyChangedMemberDropsPopulate() {
+        // 조회 중에 변경 -> 변경한 회원의 조회 결과만 버림
+        LoadHookRepository hooked = new LoadHookRepository(target);
+        CachingMemberRepository caching = new CachingMemberRepository(hooked, dataSource, 10, 60_000);
+
+        hooked.duringLoad = () -> caching.update(MEMBER_B, 0);
+        caching.findById(MEMBER_A);
+        hooked.duringLoad = () -> caching.update(MEMBER_C, 0);
+        caching.findById(MEMBER_C);
+        hooked.duringLoad = null;
+
+        assertThat(caching.findById(MEMBER_A).getMoney()).isEqualTo(10000); // B 변경과 무관하게 캐시됨
+        assertThat(caching.getHitCount()).isEqualTo(1);
+        assertThat(caching.findById(MEMBER_C).getMoney()).isZero(); // 조회 중 변경 -> 캐시하지 않고 다시 조회
+        assertThat(caching.getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    void findByIdsOnlyLoadsMissed() {
+        repository.findById(MEMBER_A);
+
+        Map<String, Member> members = repository.findByIds(List.of(MEMBER_A, MEMBER_B, "cacheNone"));
+
+        assertThat(members).containsOnlyKeys(MEMBER_A, MEMBER_B);
+        assertThat(repository.getHitCount()).isEqualTo(1); // MEMBER_A
+        assertThat(repository.getMissCount()).isEqualTo(3); // MEMBER_A(처음), MEMBER_B, cacheNone
+        assertThat(repository.findById(MEMBER_B).getMoney()).isEqualTo(20000);
+        assertThat(repository.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void offHeapStore() {
+        CachingMemberRepository offHeap = new CachingMemberRepository(target, dataSource, new OffHeapMemberCacheStore(10, 60_000));
+        offHeap.findById(MEMBER_A);
+        offHeap.update(MEMBER_A, 5000);
+        offHeap.findById(MEMBER_A);
+
+        assertThat(offHeap.findById(MEMBER_A).getMoney()).isEqualTo(5000);
+        assertThat(offHeap.getHitCount()).isEqualTo(1);
+    }
+
+    // delegate 조회 직후(리턴 전)에 duringLoad 실행
+    static class LoadHookRepository extends ForwardingMemberRepository {
+
+        volatile Runnable duringLoad;
+
+        LoadHookRepository(MemberRepository delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Member findById(String memberId) {
+            Member member = super.findById(memberId);
+            Runnable hook = duringLoad;
+            if (hook != null) {
+                hook.run();
+            }
+            return member;
+        }
+
+    }
+
+}
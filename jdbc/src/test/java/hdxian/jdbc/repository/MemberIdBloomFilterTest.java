@@ -0,0 +1,41 @@
+package hdxian.jdbc.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberIdBloomFilterTest {
+
+    @Test
+    void noFalseNegative() {
+        MemberIdBloomFilter filter = new MemberIdBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRate() {
+        MemberIdBloomFilter filter = new MemberIdBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("none" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // 설정한 비율(1%)의 2배 이내
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.getExpectedFalsePositiveRate()).isLessThan(0.02);
+        assertThat(filter.getMemoryBytes()).isEqualTo(filter.getBitSize() / 8);
+    }
+
+}
@@ -0,0 +1,88 @@
+package hdxian.jdbc.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.MyDbException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class MemberRepositoryV4_1Test {
+
+    static final int MEMBERS = 5;
+
+    HikariDataSource dataSource;
+    MemberRepositoryV4_1 repository;
+
+    @BeforeEach
+    void before() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername(USERNAME);
+        dataSource.setPassword(PASSWORD);
+        MemberSchema.migrate(dataSource); // version 컬럼
+
+        // 청크 분할을 확인하기 위해 작은 배치 크기 -> [0, 1], [2, 3], [4]
+        repository = new MemberRepositoryV4_1(dataSource, 2);
+    }
+
+    @AfterEach
+    void after() {
+        for (int i = 0; i < MEMBERS; i++) {
+            repository.delete(memberId(i));
+        }
+        dataSource.close();
+    }
+
+    @Test
+    void saveAll() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member(memberId(i), (i + 1) * 1000));
+        }
+
+        List<SaveResult> results = repository.saveAll(members);
+
+        assertThat(results).hasSize(MEMBERS);
+        assertThat(results).allMatch(SaveResult::isSuccess);
+        for (int i = 0; i < MEMBERS; i++) {
+            assertThat(repository.findById(memberId(i)).getMoney()).isEqualTo((i + 1) * 1000);
+        }
+    }
+
+    @Test
+    void saveAllDuplicateKey() {
+        // 두 번째 청크의 마지막 행, 마지막 청크(1행)의 행이 중복
+        repository.save(new Member(memberId(3), 0));
+        repository.save(new Member(memberId(4), 0));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member(memberId(i), (i + 1) * 1000));
+        }
+
+        List<SaveResult> results = repository.saveAll(members);
+        log.info("results={}", results);
+
+        // 중복된 행만 실패 (MyDbException (V4_1은 예외 변환 없음)), 같은 청크와 다른 청크의 나머지 행은 저장됨
+        assertThat(results).extracting(SaveResult::isSuccess).containsExactly(true, true, true, false, false);
+        assertThat(results.get(3).getError()).isInstanceOf(MyDbException.class);
+        assertThat(results.get(4).getError()).isInstanceOf(MyDbException.class);
+        assertThat(repository.findById(memberId(2)).getMoney()).isEqualTo(3000);
+        assertThat(repository.findById(memberId(3)).getMoney()).isZero();
+        assertThat(repository.findById(memberId(4)).getMoney()).isZero();
+    }
+
+    private static String memberId(int i) {
+        return "v41u" + i;
+    }
+
+}
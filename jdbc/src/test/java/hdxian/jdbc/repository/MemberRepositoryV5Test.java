@@ -0,0 +1,200 @@
+package hdxian.jdbc.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class MemberRepositoryV5Test {
+
+    HikariDataSource dataSource;
+    MemberRepositoryV5 repository;
+
+    @BeforeEach
+    void before() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername(USERNAME);
+        dataSource.setPassword(PASSWORD);
+        MemberSchema.migrate(dataSource); // version 컬럼
+
+        // 청크 분할, 여러 번의 fetch를 확인하기 위해 작은 배치 크기, fetch 크기 사용
+        repository = new MemberRepositoryV5(dataSource, 2, 2);
+    }
+
+    @AfterEach
+    void after() {
+        for (int i = 0; i < 5; i++) {
+            repository.delete("batchUser" + i);
+        }
+        dataSource.close();
+    }
+
+    @Test
+    void saveAll() {
+        List<Member> members = List.of(
+                new Member("batchUser0", 1000),
+                new Member("batchUser1", 2000),
+                new Member("batchUser2", 3000),
+                new Member("batchUser3", 4000),
+                new Member("batchUser4", 5000));
+
+        List<SaveResult> results = repository.saveAll(members);
+
+        assertThat(results).hasSize(5);
+        assertThat(results).allMatch(SaveResult::isSuccess);
+        assertThat(repository.findById("batchUser4").getMoney()).isEqualTo(5000);
+    }
+
+    @Test
+    void saveAllDuplicateKey() {
+        repository.save(new Member("batchUser1", 0));
+
+        List<Member> members = List.of(
+                new Member("batchUser0", 1000),
+                new Member("batchUser1", 2000), // duplicate
+                new Member("batchUser2", 3000));
+
+        List<SaveResult> results = repository.saveAll(members);
+        log.info("results={}", results);
+
+        // 중복된 행만 실패하고, 같은 배치의 나머지 행은 저장됨
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).getError()).isInstanceOf(DuplicateKeyException.class);
+        assertThat(results.get(2).isSuccess()).isTrue();
+        assertThat(repository.findById("batchUser1").getMoney()).isEqualTo(0);
+        assertThat(repository.findById("batchUser2").getMoney()).isEqualTo(3000);
+    }
+
+    @Test
+    void streamWhere() {
+        repository.saveAll(List.of(
+                new Member("batchUser0", 1000),
+                new Member("batchUser1", 2000),
+                new Member("batchUser2", 3000),
+                new Member("batchUser3", 4000),
+                new Member("batchUser4", 5000)));
+
+        try (Stream<Member> stream = repository.streamWhere(3000)) {
+            List<String> memberIds = stream
+                    .map(Member::getMemberId)
+                    .filter(id -> id.startsWith("batchUser"))
+                    .toList();
+            assertThat(memberIds).containsExactlyInAnyOrder("batchUser2", "batchUser3", "batchUser4");
+        }
+    }
+
+    @Test
+    void streamAllReleasesConnectionOnClose() {
+        repository.saveAll(List.of(new Member("batchUser0", 1000), new Member("batchUser1", 2000)));
+
+        Stream<Member> stream = repository.streamAll();
+        assertThat(stream.iterator().hasNext()).isTrue();
+        assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1); // 읽는 동안 커넥션 점유
+
+        stream.close();
+        assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    @Test
+    void findPage() {
+        repository.saveAll(List.of(
+                new Member("batchUser0", 1000),
+                new Member("batchUser1", 2000),
+                new Member("batchUser2", 3000),
+                new Member("batchUser3", 4000),
+                new Member("batchUser4", 5000)));
+
+        List<Member> first = repository.findPage("batchUser", 2);
+        assertThat(first).extracting(Member::getMemberId).containsExactly("batchUser0", "batchUser1");
+
+        // 이전 페이지의 마지막 id 다음부터
+        List<Member> second = repository.findPage(first.get(1).getMemberId(), 2);
+        assertThat(second).extracting(Member::getMemberId).containsExactly("batchUser2", "batchUser3");
+
+        List<Member> filtered = repository.findPage("batchUser", 3000, 2);
+        assertThat(filtered).extracting(Member::getMemberId).containsExactly("batchUser2", "batchUser3");
+    }
+
+    @Test
+    void findByIds() {
+        repository.saveAll(List.of(
+                new Member("batchUser0", 1000),
+                new Member("batchUser1", 2000),
+                new Member("batchUser2", 3000)));
+
+        Map<String, Member> members = repository.findByIds(List.of("batchUser0", "batchUser2", "batchUser4", "batchUser0"));
+
+        // 없는 id(batchUser4)는 결과에서 빠짐
+        assertThat(members).containsOnlyKeys("batchUser0", "batchUser2");
+        assertThat(members.get("batchUser2").getMoney()).isEqualTo(3000);
+    }
+
+    @Test
+    void findOptionalById() {
+        repository.save(new Member("batchUser0", 1000));
+
+        assertThat(repository.findOptionalById("batchUser0")).get().extracting(Member::getMoney).isEqualTo(1000);
+        assertThat(repository.findOptionalById("batchUser1")).isEmpty(); // 예외 없음
+        assertThat(repository.existsById("batchUser0")).isTrue();
+        assertThat(repository.existsById("batchUser1")).isFalse();
+    }
+
+    @Test
+    void updateWithVersion() {
+        repository.save(new Member("batchUser0", 1000));
+        Member member = repository.findById("batchUser0");
+        assertThat(member.getVersion()).isZero();
+
+        repository.update("batchUser0", 2000, member.getVersion());
+        Member updated = repository.findById("batchUser0");
+        assertThat(updated.getMoney()).isEqualTo(2000);
+        assertThat(updated.getVersion()).isEqualTo(1);
+
+        // 이미 변경된 version으로 다시 쓰면 실패, 값은 그대로
+        assertThatThrownBy(() -> repository.update("batchUser0", 3000, member.getVersion()))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(repository.findById("batchUser0").getMoney()).isEqualTo(2000);
+
+        // 상대값 변경도 version을 올림
+        assertThat(repository.deposit("batchUser0", 500).getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void applyDeltas() {
+        repository.save(new Member("batchUser0", 1000));
+        repository.save(new Member("batchUser1", 0));
+        repository.save(new Member("batchUser2", 500));
+
+        // batchSize 2 -> 배치 2번
+        repository.applyDeltas(new TreeMap<>(Map.of("batchUser0", -300, "batchUser1", 200, "batchUser2", 100)));
+
+        assertThat(repository.findById("batchUser0").getMoney()).isEqualTo(700);
+        assertThat(repository.findById("batchUser1").getMoney()).isEqualTo(200);
+        assertThat(repository.findById("batchUser2").getMoney()).isEqualTo(600);
+        assertThat(repository.findById("batchUser0").getVersion()).isEqualTo(1);
+
+        // 잔액이 음수가 되는 행, 없는 회원 -> 예외 (트랜잭션 밖이므로 나머지 행은 변경됨)
+        assertThatThrownBy(() -> repository.applyDeltas(new TreeMap<>(Map.of("batchUser0", -800, "batchUser3", 10))))
+                .isInstanceOf(InsufficientMoneyException.class)
+                .hasMessageContaining("batchUser0")
+                .hasMessageContaining("batchUser3");
+        assertThat(repository.findById("batchUser0").getMoney()).isEqualTo(700);
+    }
+
+}
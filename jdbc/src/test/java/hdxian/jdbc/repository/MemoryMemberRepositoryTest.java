@@ -0,0 +1,248 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// DB 없이 실행 (H2 서버 불필요)
+class MemoryMemberRepositoryTest {
+
+    MemoryMemberRepository repository = new MemoryMemberRepository();
+    TransactionTemplate txTemplate = new TransactionTemplate(new MemoryTransactionManager());
+
+    @Test
+    void crud() {
+        repository.save(new Member("memberA", 10000));
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+
+        repository.update("memberA", 20000);
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(20000);
+
+        repository.delete("memberA");
+        assertThatThrownBy(() -> repository.findById("memberA"))
+                .isInstanceOf(EmptyResultDataAccessException.class);
+        assertThat(repository.findOptionalById("memberA")).isEmpty();
+        assertThat(repository.existsById("memberA")).isFalse();
+    }
+
+    @Test
+    void duplicateKey() {
+        repository.save(new Member("memberA", 10000));
+
+        assertThatThrownBy(() -> repository.save(new Member("memberA", 0)))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        List<SaveResult> results = repository.saveAll(List.of(new Member("memberB", 0), new Member("memberA", 0)));
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).getError()).isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void withdrawAndDeposit() {
+        repository.save(new Member("memberA", 10000));
+
+        assertThat(repository.withdraw("memberA", 3000).getMoney()).isEqualTo(7000);
+        assertThat(repository.deposit("memberA", 1000).getMoney()).isEqualTo(8000);
+
+        assertThatThrownBy(() -> repository.withdraw("memberA", 9000))
+                .isInstanceOf(InsufficientMoneyException.class);
+        assertThatThrownBy(() -> repository.withdraw("memberB", 1))
+                .isInstanceOf(InsufficientMoneyException.class);
+        assertThatThrownBy(() -> repository.deposit("memberB", 1))
+                .isInstanceOf(EmptyResultDataAccessException.class);
+        assertThatThrownBy(() -> repository.deposit("memberA", Integer.MAX_VALUE))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(8000);
+    }
+
+    @Test
+    void updateWithVersion() {
+        repository.save(new Member("memberA", 10000));
+        Member member = repository.findById("memberA");
+        assertThat(member.getVersion()).isZero();
+
+        repository.update("memberA", 9000, member.getVersion());
+        assertThat(repository.findById("memberA").getVersion()).isEqualTo(1);
+        assertThatThrownBy(() -> repository.update("memberA", 8000, member.getVersion()))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThatThrownBy(() -> repository.update("memberB", 8000, 0))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(repository.withdraw("memberA", 1000).getVersion()).isEqualTo(2);
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(8000);
+    }
+
+    @Test
+    void findPageAndFindByIds() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Member("member" + i, i * 1000));
+        }
+
+        assertThat(repository.findPage(null, 3)).extracting(Member::getMemberId)
+                .containsExactly("member0", "member1", "member2");
+        assertThat(repository.findPage("member2", 5000, 3)).extracting(Member::getMemberId)
+                .containsExactly("member5", "member6", "member7");
+        assertThat(repository.findByIds(List.of("member1", "none"))).containsOnlyKeys("member1");
+    }
+
+    @Test
+    void rollback() {
+        repository.save(new Member("memberA", 10000));
+
+        txTemplate.executeWithoutResult(status -> {
+            repository.withdraw("memberA", 3000);
+            repository.save(new Member("memberB", 0));
+            repository.delete("memberA");
+            status.setRollbackOnly();
+        });
+
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+        assertThat(repository.existsById("memberB")).isFalse();
+    }
+
+    @Test
+    void rollbackWholeTransactionOnParticipantFailure() {
+        repository.save(new Member("memberA", 10000));
+
+        assertThatThrownBy(() -> txTemplate.executeWithoutResult(status -> {
+            repository.withdraw("memberA", 3000);
+            // 같은 트랜잭션에 참여한 쪽의 예외 -> 바깥에서 잡아도 전체 롤백
+            try {
+                txTemplate.executeWithoutResult(inner -> repository.deposit("memberB", 3000));
+            } catch (EmptyResultDataAccessException ignored) {
+            }
+        })).isInstanceOf(org.springframework.transaction.UnexpectedRollbackException.class);
+
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    void findByIdForUpdateHoldsRowLockUntilCompletion() throws Exception {
+        // 조회 후 절대값 update (accountTransferLocked와 같은 방식) -> 행 락이 없으면 갱신 분실
+        repository.save(new Member("memberA", 0));
+        int threads = 8;
+        int increments = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        txTemplate.executeWithoutResult(status -> {
+                            Member member = repository.findByIdForUpdate("memberA");
+                            Thread.yield();
+                            repository.update("memberA", member.getMoney() + 1);
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(threads * increments);
+    }
+
+    @Test
+    void writeWaitsForRowLock() throws Exception {
+        repository.save(new Member("memberA", 10000));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> txTemplate.executeWithoutResult(status -> {
+            repository.findByIdForUpdate("memberA");
+            locked.countDown();
+            await(release);
+            status.setRollbackOnly();
+        }));
+        locked.await();
+
+        // 다른 트랜잭션이 락을 잡고 있는 동안 기다림
+        CompletableFuture<Member> deposit = CompletableFuture.supplyAsync(() -> repository.deposit("memberA", 1000));
+        Thread.sleep(100);
+        assertThat(deposit).isNotDone();
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        assertThat(deposit.get(10, TimeUnit.SECONDS).getMoney()).isEqualTo(11000);
+    }
+
+    @Test
+    void rollbackDoesNotOverwriteOtherCommit() throws Exception {
+        // 절대값 update 후 롤백 -> 변경 전 값으로 복원. 그 사이 다른 트랜잭션이 커밋한 입금이 사라지면 안 됨
+        repository.save(new Member("memberA", 10000));
+        CountDownLatch updated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> rollingBack = CompletableFuture.runAsync(() -> txTemplate.executeWithoutResult(status -> {
+            repository.update("memberA", 5000);
+            updated.countDown();
+            await(release);
+            status.setRollbackOnly();
+        }));
+        updated.await();
+
+        // update한 트랜잭션이 끝날 때까지 입금은 기다림
+        CompletableFuture<Void> committing = CompletableFuture.runAsync(
+                () -> txTemplate.executeWithoutResult(status -> repository.deposit("memberA", 1000)));
+        Thread.sleep(100);
+        assertThat(committing).isNotDone();
+
+        release.countDown();
+        rollingBack.get(10, TimeUnit.SECONDS);
+        committing.get(10, TimeUnit.SECONDS);
+        assertThat(repository.findById("memberA").getMoney()).isEqualTo(11000);
+    }
+
+    @Test
+    void lockTimeout() throws Exception {
+        repository.save(new Member("memberA", 10000));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> txTemplate.executeWithoutResult(status -> {
+            repository.findByIdForUpdate("memberA");
+            locked.countDown();
+            await(release);
+        }));
+        locked.await();
+
+        try {
+            assertThatThrownBy(() -> txTemplate.executeWithoutResult(status -> repository.findByIdForUpdate("memberA")))
+                    .isInstanceOf(CannotAcquireLockException.class);
+        } finally {
+            release.countDown();
+        }
+        holder.get(10, TimeUnit.SECONDS);
+
+        // 트랜잭션이 끝나면 락이 풀림
+        txTemplate.executeWithoutResult(status -> repository.findByIdForUpdate("memberA"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package hdxian.jdbc.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hdxian.jdbc.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static hdxian.jdbc.connection.ConnectionConst.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class SingleFlightMemberRepositoryTest {
+
+    static final String MEMBER_A = "flightA";
+    static final int THREADS = 8;
+
+    HikariDataSource dataSource;
+    MemberRepositoryV5 target;
+    BlockingRepository blocking;
+    SingleFlightMemberRepository repository;
+
+    @BeforeEach
+    void before() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername(USERNAME);
+        dataSource.setPassword(PASSWORD);
+        MemberSchema.migrate(dataSource); // version 컬럼
+
+        target = new MemberRepositoryV5(dataSource);
+        target.save(new Member(MEMBER_A, 10000));
+
+        blocking = new BlockingRepository(target);
+        repository = new SingleFlightMemberRepository(blocking, dataSource);
+    }
+
+    @AfterEach
+    void after() {
+        target.delete(MEMBER_A);
+        dataSource.close();
+    }
+
+    @Test
+    void coalesceConcurrentCalls() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Member>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> repository.findById(MEMBER_A)));
+            }
+
+            // 첫 호출이 쿼리 중인 동안 나머지 호출이 모두 합류할 때까지 대기
+            while (repository.getCoalescedCount() < THREADS - 1) {
+                Thread.sleep(1);
+            }
+            blocking.release.countDown();
+
+            List<Member> members = new ArrayList<>();
+            for (Future<Member> result : results) {
+                members.add(result.get(5, TimeUnit.SECONDS));
+            }
+
+            assertThat(blocking.calls.get()).isEqualTo(1);
+            assertThat(repository.getQueryCount()).isEqualTo(1);
+            assertThat(members).allMatch(member -> member.getMoney() == 10000);
+            // 호출마다 복사본 (Member는 @Data라 equals가 아닌 동일성으로 비교)
+            Set<Member> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            distinct.addAll(members);
+            assertThat(distinct).hasSize(THREADS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void noCoalesceInTransaction() {
+        blocking.release.countDown();
+        TransactionTemplate txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        txTemplate.executeWithoutResult(status -> {
+            repository.update(MEMBER_A, 5000);
+            // 자기 트랜잭션에서 변경한 값이 보여야 함
+            assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(5000);
+            status.setRollbackOnly();
+        });
+
+        assertThat(repository.getQueryCount()).isZero();
+        assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    void detachAgainAfterCommit() throws Exception {
+        blocking.readBeforeBlock = true;
+        TransactionTemplate txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Member> stale = txTemplate.execute(status -> {
+                repository.deposit(MEMBER_A, 1000); // 여기서 분리되지만 아직 커밋 전
+                // 다른 스레드의 조회가 커밋 전 값을 읽고 리턴하지 않은 채 대기
+                Future<Member> reader = executor.submit(() -> repository.findById(MEMBER_A));
+                await(blocking.read);
+                return reader;
+            });
+
+            // 커밋 후의 호출은 커밋 전 값을 읽은 조회에 합류하지 않고 새로 조회
+            assertThat(repository.findById(MEMBER_A).getMoney()).isEqualTo(11000);
+            assertThat(repository.getCoalescedCount()).isZero();
+
+            blocking.release.countDown();
+            assertThat(stale.get(5, TimeUnit.SECONDS).getMoney()).isEqualTo(10000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void errorReachesWaiters() throws Exception {
+        blocking.error = new AssertionError("query failed");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Member> leader = executor.submit(() -> repository.findById(MEMBER_A));
+            while (blocking.calls.get() == 0) {
+                Thread.sleep(1);
+            }
+            Future<Member> waiter = executor.submit(() -> repository.findById(MEMBER_A));
+            while (repository.getCoalescedCount() < 1) {
+                Thread.sleep(1);
+            }
+            blocking.release.countDown();
+
+            // leader의 Error가 기다리던 호출에도 전달됨 (멈춰 있지 않음)
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 첫 findById를 release 전까지 붙잡아 두는 delegate
+    static class BlockingRepository extends ForwardingMemberRepository {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch read = new CountDownLatch(1); // 첫 호출이 DB를 읽음
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean readBeforeBlock; // true면 먼저 읽고 리턴을 release까지 미룸
+        volatile Error error; // null이 아니면 release 후 던짐
+
+        BlockingRepository(MemberRepository delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Member findById(String memberId) {
+            if (calls.incrementAndGet() > 1) {
+                return super.findById(memberId);
+            }
+
+            Member member = readBeforeBlock ? super.findById(memberId) : null;
+            read.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (error != null) {
+                throw error;
+            }
+            return member != null ? member : super.findById(memberId);
+        }
+
+    }
+
+}
@@ -0,0 +1,232 @@
+package hdxian.jdbc.repository;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// DB 없이 실행 (MemoryMemberRepository + MemoryTransactionManager)
+class WriteBehindMemberRepositoryTest {
+
+    static final String HOT = "merchant";
+    static final String NORMAL = "memberA";
+
+    MemoryMemberRepository memory = new MemoryMemberRepository();
+    MemoryTransactionManager transactionManager = new MemoryTransactionManager();
+    AtomicInteger depositCalls = new AtomicInteger();
+    AtomicInteger findCalls = new AtomicInteger();
+    WriteBehindMemberRepository repository;
+
+    @BeforeEach
+    void before() {
+        // delegate의 deposit, findById 호출 수를 셈
+        MemberRepository counting = new ForwardingMemberRepository(memory) {
+            @Override
+            public Member deposit(String memberId, int amount) {
+                depositCalls.incrementAndGet();
+                return super.deposit(memberId, amount);
+            }
+
+            @Override
+            public Member findById(String memberId) {
+                findCalls.incrementAndGet();
+                return super.findById(memberId);
+            }
+        };
+        repository = new WriteBehindMemberRepository(counting, transactionManager, Set.of(HOT), 0); // flush() 직접 호출
+        memory.save(new Member(HOT, 0));
+        memory.save(new Member(NORMAL, 10000));
+    }
+
+    @AfterEach
+    void after() {
+        repository.close();
+    }
+
+    @Test
+    void bufferAndFlush() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(repository.deposit(HOT, 10).getMoney()).isEqualTo((i + 1) * 10);
+        }
+        assertThat(findCalls.get()).isEqualTo(1); // 존재 확인은 처음 한 번, 입금마다 조회하지 않음
+
+        // DB에는 아직 반영 전, 누적분을 합친 조회는 반영 후와 같음
+        assertThat(repository.findById(HOT).getMoney()).isZero();
+        assertThat(repository.findByIdWithPending(HOT).getMoney()).isEqualTo(1000);
+        assertThat(depositCalls.get()).isZero();
+
+        repository.flush();
+
+        assertThat(repository.findById(HOT).getMoney()).isEqualTo(1000);
+        assertThat(repository.getPendingAmount(HOT)).isZero();
+        assertThat(depositCalls.get()).isEqualTo(1); // 100건 -> update 1번
+        assertThat(repository.getFlushCount()).isEqualTo(1);
+    }
+
+    @Test
+    void normalAccountNotBuffered() {
+        repository.deposit(NORMAL, 1000);
+
+        assertThat(memory.findById(NORMAL).getMoney()).isEqualTo(11000);
+        assertThat(depositCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rollbackDiscardsCredit() {
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> txTemplate.executeWithoutResult(status -> {
+            repository.deposit(HOT, 500);
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(repository.getPendingAmount(HOT)).isZero();
+
+        txTemplate.executeWithoutResult(status -> repository.deposit(HOT, 300));
+        assertThat(repository.getPendingAmount(HOT)).isEqualTo(300);
+    }
+
+    @Test
+    void depositInTransactionIncludesEarlierCredits() {
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+
+        txTemplate.executeWithoutResult(status -> {
+            assertThat(repository.deposit(HOT, 100).getMoney()).isEqualTo(100);
+            assertThat(repository.deposit(HOT, 200).getMoney()).isEqualTo(300); // 같은 트랜잭션에서 먼저 누적한 입금 포함
+            assertThat(repository.getPendingAmount(HOT)).isZero(); // 커밋 전
+        });
+
+        assertThat(repository.getPendingAmount(HOT)).isEqualTo(300);
+        assertThat(repository.deposit(HOT, 50).getMoney()).isEqualTo(350);
+    }
+
+    @Test
+    void withdrawFlushesPendingCredits() {
+        repository.deposit(HOT, 1000);
+
+        // DB 잔액 0 -> 누적분 반영 후 출금
+        assertThat(repository.withdraw(HOT, 700).getMoney()).isEqualTo(300);
+        assertThat(repository.getPendingAmount(HOT)).isZero();
+    }
+
+    @Test
+    void withdrawFlushesInCallerTransaction() {
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+        repository.deposit(HOT, 1000);
+
+        // 호출한 트랜잭션에서 입금 -> 출금과 함께 롤백되고 누적분으로 되돌아감
+        txTemplate.executeWithoutResult(status -> {
+            assertThat(repository.withdraw(HOT, 700).getMoney()).isEqualTo(300);
+            status.setRollbackOnly();
+        });
+
+        assertThat(memory.findById(HOT).getMoney()).isZero();
+        assertThat(repository.getPendingAmount(HOT)).isEqualTo(1000);
+    }
+
+    @Test
+    void withdrawKeepsOriginalExceptionWhenFlushFails() {
+        repository.deposit(HOT, 1000);
+        memory.delete(HOT); // 누적분 입금이 실패하도록 write-behind를 거치지 않고 삭제
+
+        assertThatThrownBy(() -> repository.withdraw(HOT, 700))
+                .isInstanceOf(InsufficientMoneyException.class)
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(1)
+                        .allMatch(suppressed -> suppressed instanceof EmptyResultDataAccessException));
+        assertThat(repository.getPendingAmount(HOT)).isEqualTo(1000);
+    }
+
+    @Test
+    void closeDrainsPendingCredits() {
+        repository.deposit(HOT, 1000);
+
+        repository.close();
+
+        assertThat(memory.findById(HOT).getMoney()).isEqualTo(1000);
+    }
+
+    @Test
+    void deleteFlushesPendingCredits() {
+        repository.deposit(HOT, 1000);
+
+        repository.delete(HOT);
+
+        assertThat(depositCalls.get()).isEqualTo(1); // 삭제 전에 입금
+        assertThat(repository.getPendingAmount(HOT)).isZero();
+        assertThat(memory.findOptionalById(HOT)).isEmpty();
+        assertThatThrownBy(() -> repository.deposit(HOT, 10)).isInstanceOf(RuntimeException.class); // 존재 여부를 다시 확인
+    }
+
+    @Test
+    void deleteRollbackKeepsPendingCredits() {
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+        repository.deposit(HOT, 1000);
+
+        assertThatThrownBy(() -> txTemplate.executeWithoutResult(status -> {
+            repository.delete(HOT);
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // 삭제, 입금 모두 롤백 -> 누적분으로 되돌아감
+        assertThat(memory.findById(HOT).getMoney()).isZero();
+        assertThat(repository.getPendingAmount(HOT)).isEqualTo(1000);
+    }
+
+    @Test
+    void deletedAccountKeepsPendingCredits() {
+        repository.deposit(HOT, 1000);
+        memory.delete(HOT); // write-behind를 거치지 않고 삭제
+
+        repository.flush(); // 예외 없이 error 로그
+
+        assertThat(repository.getPendingAmount(HOT)).isEqualTo(1000); // 버리지 않음
+        assertThat(repository.getFlushCount()).isZero();
+    }
+
+    @Test
+    void concurrentCreditsWithScheduledFlush() throws Exception {
+        int threads = 16;
+        int credits = 5000;
+        repository.close();
+        repository = new WriteBehindMemberRepository(memory, transactionManager, Set.of(HOT), 1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < credits; i++) {
+                        repository.deposit(HOT, 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        repository.close();
+
+        // 반영 중에 들어온 입금도 사라지지 않음
+        assertThat(memory.findById(HOT).getMoney()).isEqualTo(threads * credits);
+        assertThat(repository.getFlushCount()).isLessThan(threads * credits);
+    }
+
+}
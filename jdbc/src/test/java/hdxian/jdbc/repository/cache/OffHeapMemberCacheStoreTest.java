@@ -0,0 +1,91 @@
+package hdxian.jdbc.repository.cache;
+
+import hdxian.jdbc.domain.Member;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapMemberCacheStoreTest {
+
+    @Test
+    void putAndGet() {
+        OffHeapMemberCacheStore store = new OffHeapMemberCacheStore(10, 60_000);
+        store.put(new Member("memberA", 10000));
+        store.put(new Member("memberA", 20000)); // 덮어쓰기
+
+        Member member = store.get("memberA");
+        assertThat(member.getMemberId()).isEqualTo("memberA");
+        assertThat(member.getMoney()).isEqualTo(20000);
+        assertThat(store.get("memberB")).isNull();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void clockEviction() {
+        OffHeapMemberCacheStore store = new OffHeapMemberCacheStore(3, 60_000);
+        store.put(new Member("memberA", 1));
+        store.put(new Member("memberB", 2));
+        store.put(new Member("memberC", 3));
+        store.get("memberA"); // 참조 비트 설정
+
+        store.put(new Member("memberD", 4));
+
+        // 참조되지 않은 가장 앞의 항목(memberB)이 제거됨
+        assertThat(store.get("memberA")).isNotNull();
+        assertThat(store.get("memberB")).isNull();
+        assertThat(store.get("memberD")).isNotNull();
+        assertThat(store.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void ttlExpiration() throws InterruptedException {
+        OffHeapMemberCacheStore store = new OffHeapMemberCacheStore(10, 10);
+        store.put(new Member("memberA", 1));
+        Thread.sleep(50);
+
+        assertThat(store.get("memberA")).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void tooLongIdIsNotCached() {
+        OffHeapMemberCacheStore store = new OffHeapMemberCacheStore(10, 60_000);
+        store.put(new Member("x".repeat(OffHeapMemberCacheStore.MAX_ID_CHARS + 1), 1));
+
+        assertThat(store.size()).isZero();
+    }
+
+    // put, get, remove를 섞어 HashMap과 비교 (backward shift 삭제, CLOCK 재사용 후에도 인덱스가 맞는지)
+    @Test
+    void randomOperations() {
+        OffHeapMemberCacheStore store = new OffHeapMemberCacheStore(100, 60_000);
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+
+        for (int i = 0; i < 100_000; i++) {
+            String memberId = "m" + random.nextInt(300);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    store.put(new Member(memberId, i));
+                    expected.put(memberId, i);
+                }
+                case 1 -> {
+                    Member member = store.get(memberId);
+                    if (member != null) {
+                        assertThat(member.getMoney()).isEqualTo(expected.get(memberId));
+                    }
+                }
+                default -> {
+                    store.remove(memberId);
+                    expected.remove(memberId);
+                }
+            }
+            assertThat(store.size()).isLessThanOrEqualTo(100);
+        }
+    }
+
+}
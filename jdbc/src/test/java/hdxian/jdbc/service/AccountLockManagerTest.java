@@ -0,0 +1,120 @@
+package hdxian.jdbc.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// DB 없이 실행
+class AccountLockManagerTest {
+
+    static final int THREADS = 32;
+    static final int ITERATIONS = 2000;
+
+    @Test
+    void serializeSameAccount() throws Exception {
+        // 모든 작업이 hot 계좌를 포함 -> 임계 구역 안에는 항상 1개
+        AccountLockManager lockManager = new AccountLockManager(64, 5000);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        runConcurrently(i -> lockManager.executeLocked("hot", "acct" + (i % 50), () -> {
+            int now = inside.incrementAndGet();
+            maxInside.accumulateAndGet(now, Math::max);
+            inside.decrementAndGet();
+            return null;
+        }));
+
+        assertThat(maxInside.get()).isEqualTo(1);
+    }
+
+    @Test
+    void oppositeOrderNoDeadlock() throws Exception {
+        // A -> B, B -> A를 동시에 -> stripe 순서로 획득하므로 교착 없이 모두 끝남
+        AccountLockManager lockManager = new AccountLockManager(1024, 5000);
+        AtomicInteger done = new AtomicInteger();
+
+        runConcurrently(i -> {
+            String a = "acct" + (i % 4);
+            String b = "acct" + ((i + 1) % 4);
+            return i % 2 == 0
+                    ? lockManager.executeLocked(a, b, done::incrementAndGet)
+                    : lockManager.executeLocked(b, a, done::incrementAndGet);
+        });
+
+        assertThat(done.get()).isEqualTo(THREADS * ITERATIONS);
+        assertThat(lockManager.getTimeoutCount()).isZero();
+    }
+
+    @Test
+    void sameStripe() {
+        // stripe 1개 -> 모든 id가 같은 stripe. 한 번만 잡고 한 번만 풀어야 다음 호출이 바로 획득
+        AccountLockManager lockManager = new AccountLockManager(1, 0);
+
+        assertThat(lockManager.executeLocked("memberA", "memberB", () -> "ok")).isEqualTo("ok");
+        assertThat(lockManager.executeLocked("memberA", () -> "ok")).isEqualTo("ok");
+        assertThat(lockManager.getContendedCount()).isZero();
+    }
+
+    @Test
+    void lockTimeout() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 50);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> lockManager.executeLocked("hot", () -> {
+                locked.countDown();
+                release.await();
+                return null;
+            }));
+            locked.await();
+
+            assertThatThrownBy(() -> lockManager.executeLocked("hot", "memberB", () -> "ok"))
+                    .isInstanceOf(CannotAcquireLockException.class);
+            assertThat(lockManager.getTimeoutCount()).isEqualTo(1);
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            assertThat(lockManager.executeLocked("hot", "memberB", () -> "ok")).isEqualTo("ok"); // 실패한 쪽이 락을 남기지 않음
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void runConcurrently(IntTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        task.run(i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    interface IntTask {
+        Object run(int i);
+    }
+
+}
@@ -0,0 +1,186 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ForwardingMemberRepository;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.MemoryMemberRepository;
+import hdxian.jdbc.repository.MemoryTransactionManager;
+import hdxian.jdbc.service.TransferOutcome.RejectReason;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// DB 없이 실행 (MemoryMemberRepository + MemoryTransactionManager)
+class BatchTransferServiceTest {
+
+    MemoryMemberRepository memory = new MemoryMemberRepository();
+    MemoryTransactionManager transactionManager = new MemoryTransactionManager();
+    AtomicInteger applyCalls = new AtomicInteger();
+    AtomicInteger updatedRows = new AtomicInteger();
+    BatchTransferService service;
+
+    @BeforeEach
+    void before() {
+        MemberRepository counting = new ForwardingMemberRepository(memory) {
+            @Override
+            public void applyDeltas(Map<String, Integer> deltas) {
+                applyCalls.incrementAndGet();
+                updatedRows.addAndGet(deltas.size());
+                super.applyDeltas(deltas);
+            }
+        };
+        service = new BatchTransferService(transactionManager, counting);
+
+        memory.save(new Member("memberA", 100));
+        memory.save(new Member("memberB", 0));
+        memory.save(new Member("memberC", 50));
+    }
+
+    @Test
+    void netting() {
+        List<TransferRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            requests.add(new TransferRequest("memberA", "memberB", 10));
+            requests.add(new TransferRequest("memberB", "memberA", 10));
+        }
+        requests.add(new TransferRequest("memberC", "memberB", 30));
+
+        List<TransferOutcome> outcomes = service.transferAll(requests);
+
+        assertThat(outcomes).hasSize(2001).allMatch(TransferOutcome::isAccepted);
+        assertThat(memory.findById("memberA").getMoney()).isEqualTo(100);
+        assertThat(memory.findById("memberB").getMoney()).isEqualTo(30);
+        assertThat(memory.findById("memberC").getMoney()).isEqualTo(20);
+        // A는 순변동 0 -> B, C만 한 번의 배치로 변경
+        assertThat(applyCalls.get()).isEqualTo(1);
+        assertThat(updatedRows.get()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectInOrder() {
+        List<TransferOutcome> outcomes = service.transferAll(List.of(
+                new TransferRequest("memberB", "memberA", 10), // B 잔액 0 -> 거절
+                new TransferRequest("memberA", "memberB", 60),
+                new TransferRequest("memberB", "memberC", 60), // 앞의 이체로 B 잔액 60 -> 수락
+                new TransferRequest("memberA", "memberB", 50), // A 잔액 40 -> 거절
+                new TransferRequest("memberA", "nobody", 10),
+                new TransferRequest("memberA", "memberA", 10),
+                new TransferRequest("memberA", "memberB", 0)));
+
+        assertThat(outcomes).extracting(TransferOutcome::getRejectReason).containsExactly(
+                RejectReason.INSUFFICIENT_MONEY,
+                null,
+                null,
+                RejectReason.INSUFFICIENT_MONEY,
+                RejectReason.MEMBER_NOT_FOUND,
+                RejectReason.INVALID_REQUEST,
+                RejectReason.INVALID_REQUEST);
+        assertThat(memory.findById("memberA").getMoney()).isEqualTo(40);
+        assertThat(memory.findById("memberB").getMoney()).isEqualTo(0);
+        assertThat(memory.findById("memberC").getMoney()).isEqualTo(110);
+    }
+
+    @Test
+    void sameResultAsSequentialTransfers() {
+        // 무작위 이체 목록: 상계 결과 == 한 건씩 실행한 결과
+        MemoryMemberRepository sequential = new MemoryMemberRepository();
+        for (String memberId : List.of("memberA", "memberB", "memberC")) {
+            sequential.save(new Member(memberId, memory.findById(memberId).getMoney()));
+        }
+
+        Random random = new Random(7);
+        List<String> ids = List.of("memberA", "memberB", "memberC");
+        List<TransferRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            requests.add(new TransferRequest(ids.get(random.nextInt(3)), ids.get(random.nextInt(3)), 1 + random.nextInt(40)));
+        }
+
+        List<TransferOutcome> outcomes = service.transferAll(requests);
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            boolean accepted;
+            try {
+                if (request.getFromId().equals(request.getToId())) {
+                    throw new IllegalArgumentException();
+                }
+                sequential.withdraw(request.getFromId(), request.getAmount());
+                sequential.deposit(request.getToId(), request.getAmount());
+                accepted = true;
+            } catch (RuntimeException e) {
+                accepted = false;
+            }
+            assertThat(outcomes.get(i).isAccepted()).as("request %d", i).isEqualTo(accepted);
+        }
+        for (String memberId : ids) {
+            assertThat(memory.findById(memberId).getMoney()).isEqualTo(sequential.findById(memberId).getMoney());
+        }
+    }
+
+    @Test
+    void retryWhenBalanceChangedConcurrently() {
+        // 조회 후 반영 전에 다른 곳에서 A 잔액을 출금 -> 잔액 검사 실패 -> 처음부터 다시 (두 번째는 A->B 거절)
+        AtomicBoolean interfered = new AtomicBoolean();
+        MemberRepository interfering = new ForwardingMemberRepository(memory) {
+            @Override
+            public void applyDeltas(Map<String, Integer> deltas) {
+                if (interfered.compareAndSet(false, true)) {
+                    // 다른 스레드 = 이 트랜잭션 밖의 변경 (롤백되어도 되돌려지지 않음)
+                    CompletableFuture.runAsync(() -> memory.withdraw("memberA", 100)).join();
+                }
+                super.applyDeltas(deltas);
+            }
+        };
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 3, 0, 0);
+        BatchTransferService retrying = new BatchTransferService(executor, interfering);
+
+        List<TransferOutcome> outcomes = retrying.transferAll(List.of(
+                new TransferRequest("memberA", "memberB", 80),
+                new TransferRequest("memberC", "memberB", 50)));
+
+        assertThat(executor.getRetryCount()).isEqualTo(1);
+        assertThat(outcomes.get(0).getRejectReason()).isEqualTo(RejectReason.INSUFFICIENT_MONEY);
+        assertThat(outcomes.get(1).isAccepted()).isTrue();
+        assertThat(memory.findById("memberA").getMoney()).isZero();
+        assertThat(memory.findById("memberB").getMoney()).isEqualTo(50);
+        assertThat(memory.findById("memberC").getMoney()).isZero();
+    }
+
+    @Test
+    void retryWhenDepositOverflowsConcurrently() {
+        // 조회 후 반영 전에 다른 곳에서 B에 입금 -> B의 update가 int 범위 초과 -> 처음부터 다시 (두 번째는 A->B만 거절)
+        AtomicBoolean interfered = new AtomicBoolean();
+        MemberRepository interfering = new ForwardingMemberRepository(memory) {
+            @Override
+            public void applyDeltas(Map<String, Integer> deltas) {
+                if (interfered.compareAndSet(false, true)) {
+                    CompletableFuture.runAsync(() -> memory.deposit("memberB", Integer.MAX_VALUE - 10)).join();
+                }
+                super.applyDeltas(deltas);
+            }
+        };
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 3, 0, 0);
+        BatchTransferService retrying = new BatchTransferService(executor, interfering);
+
+        List<TransferOutcome> outcomes = retrying.transferAll(List.of(
+                new TransferRequest("memberA", "memberB", 80),
+                new TransferRequest("memberC", "memberA", 50)));
+
+        assertThat(executor.getRetryCount()).isEqualTo(1);
+        assertThat(outcomes.get(0).getRejectReason()).isEqualTo(RejectReason.MONEY_OUT_OF_RANGE);
+        assertThat(outcomes.get(1).isAccepted()).isTrue();
+        assertThat(memory.findById("memberA").getMoney()).isEqualTo(150);
+        assertThat(memory.findById("memberB").getMoney()).isEqualTo(Integer.MAX_VALUE - 10);
+        assertThat(memory.findById("memberC").getMoney()).isZero();
+    }
+
+}
@@ -0,0 +1,239 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.MemberRepositoryV5;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * GroupCommitTransferService - 이체마다 savepoint(NESTED)가 필요하므로 H2 서버 + DataSourceTransactionManager로 실행
+ */
+@Slf4j
+@SpringBootTest
+class GroupCommitTransferServiceTest {
+
+    static final int THREADS = 16;
+    static final int TRANSFERS_PER_THREAD = 20;
+    static final int ACCOUNTS = 8;
+    static final int INITIAL_MONEY = 100000;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private GroupCommitTransferService service;
+
+    @TestConfiguration
+    static class testConfig {
+
+        private final DataSource dataSource;
+
+        public testConfig(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Bean
+        MemberRepository memberRepository() {
+            return new MemberRepositoryV5(dataSource);
+        }
+
+    }
+
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            memberRepository.save(new Member(accountId(i), INITIAL_MONEY));
+        }
+        service = new GroupCommitTransferService(transactionManager, memberRepository, 32, 5);
+    }
+
+    @AfterEach
+    void after() {
+        service.close();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            memberRepository.delete(accountId(i));
+        }
+        memberRepository.delete("ex");
+    }
+
+    @Test
+    void failedTransferDoesNotAffectGroup() {
+        memberRepository.save(new Member("ex", 0));
+        service.close();
+        // 한 묶음으로 처리되도록 충분히 기다림
+        service = new GroupCommitTransferService(transactionManager, memberRepository, 32, 500);
+
+        CompletableFuture<TransferResult> ok1 = service.submit(accountId(0), accountId(1), 1000);
+        CompletableFuture<TransferResult> ex = service.submit(accountId(0), "ex", 1000);                       // validation() 예외
+        CompletableFuture<TransferResult> insufficient = service.submit(accountId(2), accountId(3), INITIAL_MONEY + 1);
+        CompletableFuture<TransferResult> ok2 = service.submit(accountId(1), accountId(2), 500);
+
+        assertThat(ok1.join().getFromMoney()).isEqualTo(INITIAL_MONEY - 1000);
+        assertThat(ok2.join().getToMoney()).isEqualTo(INITIAL_MONEY + 500);
+        assertThatThrownBy(ex::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(insufficient::join).hasCauseInstanceOf(InsufficientMoneyException.class);
+        assertThat(service.getGroupCount()).isEqualTo(1);
+
+        // 실패한 이체만 savepoint로 롤백
+        assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY - 1000);
+        assertThat(memberRepository.findById(accountId(1)).getMoney()).isEqualTo(INITIAL_MONEY + 500);
+        assertThat(memberRepository.findById(accountId(2)).getMoney()).isEqualTo(INITIAL_MONEY + 500);
+        assertThat(memberRepository.findById(accountId(3)).getMoney()).isEqualTo(INITIAL_MONEY);
+        assertThat(memberRepository.findById("ex").getMoney()).isZero();
+    }
+
+    @Test
+    void commitFailureFailsWholeGroup() {
+        // 바깥 트랜잭션 커밋만 실패 (롤백 후 예외)
+        PlatformTransactionManager failingCommit = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                if (!status.isNewTransaction()) {
+                    transactionManager.commit(status); // savepoint 해제
+                    return;
+                }
+                transactionManager.rollback(status);
+                throw new TransactionSystemException("commit failed");
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        service.close();
+        service = new GroupCommitTransferService(failingCommit, memberRepository, 32, 500);
+
+        CompletableFuture<TransferResult> first = service.submit(accountId(0), accountId(1), 1000);
+        CompletableFuture<TransferResult> second = service.submit(accountId(2), accountId(3), 1000);
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(TransactionSystemException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(TransactionSystemException.class);
+        assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+        assertThat(memberRepository.findById(accountId(2)).getMoney()).isEqualTo(INITIAL_MONEY);
+    }
+
+    @Test
+    void closeDrainsQueueAndRejectsNewTransfers() {
+        CompletableFuture<TransferResult> future = service.submit(accountId(0), accountId(1), 1000);
+
+        service.close();
+
+        // close() 리턴 전에 커밋됨 (future 완료는 기본 executor에서)
+        assertThat(memberRepository.findById(accountId(1)).getMoney()).isEqualTo(INITIAL_MONEY + 1000);
+        assertThat(future.join().getToMoney()).isEqualTo(INITIAL_MONEY + 1000);
+        assertThatThrownBy(() -> service.accountTransfer(accountId(0), accountId(1), 1000))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void callbacksDoNotRunOnWriterThread() {
+        // 커밋 전에 콜백 등록 -> 완료한 스레드에서 콜백 실행
+        CompletableFuture<String> callbackThread = service.submit(accountId(0), accountId(1), 1000)
+                .thenApply(result -> Thread.currentThread().getName());
+
+        assertThat(callbackThread.join()).isNotEqualTo("group-commit-writer");
+    }
+
+    @Test
+    void errorFailsGroupAndStopsWriter() {
+        // 트랜잭션 시작에서 Error -> 묶음 실패, writer 종료, 이후 요청은 거절
+        PlatformTransactionManager failingBegin = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                throw new AssertionError("begin failed");
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        service.close();
+        service = new GroupCommitTransferService(failingBegin, memberRepository, 32, 500);
+
+        CompletableFuture<TransferResult> future = service.submit(accountId(0), accountId(1), 1000);
+
+        assertThatThrownBy(future::join).hasCauseInstanceOf(AssertionError.class);
+        service.close(); // writer가 이미 끝났으면 바로 리턴
+        assertThatThrownBy(() -> service.accountTransfer(accountId(0), accountId(1), 1000))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+    }
+
+    @Test
+    void concurrentTransfers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        service.accountTransfer(accountId(from), accountId(to), 1);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            log.info("transfers={}, groups={}", service.getTransferCount(), service.getGroupCount());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(service.getTransferCount()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+        assertThat(service.getGroupCount()).isLessThan(THREADS * TRANSFERS_PER_THREAD); // 커밋 횟수 < 이체 수
+
+        int total = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            total += memberRepository.findById(accountId(i)).getMoney();
+        }
+        assertThat(total).isEqualTo(ACCOUNTS * INITIAL_MONEY);
+    }
+
+    static String accountId(int i) {
+        return "gc" + i;
+    }
+
+}
@@ -0,0 +1,146 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.MemberRepositoryV5;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MemberServiceV4.accountTransferLocked() 동시성 테스트
+ * 64 스레드가 계좌 8개 사이에서 임의의 방향으로 이체 (A -> B, B -> A가 동시에 실행됨)
+ * -> 데드락(락 대기 실패) 0건, 전체 잔액 합계 보존
+ */
+@Slf4j
+@SpringBootTest
+class MemberServiceV4LockingTest {
+
+    static final int THREADS = 64;
+    static final int TRANSFERS_PER_THREAD = 20;
+    static final int ACCOUNTS = 8;
+    static final int INITIAL_MONEY = 100000;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MemberServiceV4 memberService;
+
+    @TestConfiguration
+    static class testConfig {
+
+        private final DataSource dataSource;
+
+        public testConfig(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Bean
+        MemberRepository memberRepository() {
+            return new MemberRepositoryV5(dataSource);
+        }
+
+        @Bean
+        MemberServiceV4 MemberServiceV4() {
+            return new MemberServiceV4(memberRepository());
+        }
+
+    }
+
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            memberRepository.save(new Member(accountId(i), INITIAL_MONEY));
+        }
+    }
+
+    @AfterEach
+    void after() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            memberRepository.delete(accountId(i));
+        }
+        memberRepository.delete("ex");
+    }
+
+    @Test
+    void concurrentOppositeTransfers() throws Exception {
+        AtomicInteger lockFailures = new AtomicInteger();
+        AtomicInteger transfers = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        try {
+                            memberService.accountTransferLocked(accountId(from), accountId(to), 1);
+                            transfers.incrementAndGet();
+                        } catch (PessimisticLockingFailureException e) { // 데드락, 락 타임아웃
+                            log.error("lock failure", e);
+                            lockFailures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long startNanos = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            log.info("transfers={}, lockFailures={}, elapsed={}ms, throughput={} transfers/s",
+                    transfers.get(), lockFailures.get(), elapsedMillis, transfers.get() * 1000L / Math.max(elapsedMillis, 1));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(lockFailures.get()).isZero();
+        assertThat(transfers.get()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+
+        int total = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            total += memberRepository.findById(accountId(i)).getMoney();
+        }
+        assertThat(total).isEqualTo(ACCOUNTS * INITIAL_MONEY);
+    }
+
+    @Test
+    void lockedTransferRollback() {
+        memberRepository.save(new Member("ex", 10000));
+
+        assertThatThrownBy(() -> memberService.accountTransferLocked(accountId(0), "ex", 2000))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+        assertThat(memberRepository.findById("ex").getMoney()).isEqualTo(10000);
+    }
+
+    private static String accountId(int i) {
+        return "lock" + i;
+    }
+
+}
@@ -0,0 +1,129 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.MemoryMemberRepository;
+import hdxian.jdbc.repository.MemoryTransactionManager;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MemoryMemberRepository + MemoryTransactionManager
+ * MemberServiceV4Test와 같은 시나리오를 H2 서버 없이 실행
+ * (트랜잭션 매니저 빈을 직접 등록 -> 스프링 부트의 DataSourceTransactionManager 자동 등록은 생략되고, 커넥션을 얻지 않음)
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.sql.init.mode=never") // DB 마이그레이션 생략 (커넥션을 얻지 않음)
+class MemberServiceV4MemoryTest {
+
+    public static final String MEMBER_A = "memberA";
+    public static final String MEMBER_B = "memberB";
+    public static final String MEMBER_EX = "ex";
+
+    @Autowired
+    private MemoryMemberRepository memberRepository;
+
+    @Autowired
+    private MemberServiceV4 memberService;
+
+    @TestConfiguration
+    static class testConfig {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new MemoryTransactionManager();
+        }
+
+        @Bean
+        MemoryMemberRepository memberRepository() {
+            return new MemoryMemberRepository();
+        }
+
+        @Bean
+        RetryingTransactionExecutor txExecutor(PlatformTransactionManager transactionManager) {
+            return new RetryingTransactionExecutor(transactionManager);
+        }
+
+        @Bean
+        MemberServiceV4 MemberServiceV4(MemberRepository memberRepository, RetryingTransactionExecutor txExecutor) {
+            return new MemberServiceV4(memberRepository, txExecutor);
+        }
+
+    }
+
+    @Autowired
+    private RetryingTransactionExecutor txExecutor;
+
+    @AfterEach
+    public void after() {
+        memberRepository.clear();
+    }
+
+    @Test
+    @DisplayName("정상 이체")
+    public void accountTransfer() {
+        memberRepository.save(new Member(MEMBER_A, 10000));
+        memberRepository.save(new Member(MEMBER_B, 10000));
+
+        TransferResult result = memberService.accountTransfer(MEMBER_A, MEMBER_B, 2000);
+
+        assertThat(memberRepository.findById(MEMBER_A).getMoney()).isEqualTo(8000);
+        assertThat(memberRepository.findById(MEMBER_B).getMoney()).isEqualTo(12000);
+        assertThat(result.getFromMoney()).isEqualTo(8000);
+        assertThat(result.getToMoney()).isEqualTo(12000);
+    }
+
+    @Test
+    @DisplayName("이체 중 예외 발생")
+    public void accountTransferEx() {
+        memberRepository.save(new Member(MEMBER_A, 10000));
+        memberRepository.save(new Member(MEMBER_EX, 10000));
+
+        assertThatThrownBy(() -> memberService.accountTransfer(MEMBER_A, MEMBER_EX, 2000))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(memberRepository.findById(MEMBER_A).getMoney()).isEqualTo(10000); // rollback
+        assertThat(memberRepository.findById(MEMBER_EX).getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    @DisplayName("잔액 부족")
+    public void accountTransferInsufficientMoney() {
+        memberRepository.save(new Member(MEMBER_A, 1000));
+        memberRepository.save(new Member(MEMBER_B, 10000));
+
+        assertThatThrownBy(() -> memberService.accountTransfer(MEMBER_A, MEMBER_B, 2000))
+                .isInstanceOf(InsufficientMoneyException.class);
+
+        assertThat(memberRepository.findById(MEMBER_A).getMoney()).isEqualTo(1000);
+        assertThat(memberRepository.findById(MEMBER_B).getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    @DisplayName("재시도 이체 - validation() 실패는 재시도하지 않고 롤백")
+    public void accountTransferWithRetry() {
+        memberRepository.save(new Member(MEMBER_A, 10000));
+        memberRepository.save(new Member(MEMBER_B, 10000));
+        memberRepository.save(new Member(MEMBER_EX, 10000));
+
+        TransferResult result = memberService.accountTransferWithRetry(MEMBER_A, MEMBER_B, 2000);
+        assertThat(result.getFromMoney()).isEqualTo(8000);
+
+        assertThatThrownBy(() -> memberService.accountTransferWithRetry(MEMBER_A, MEMBER_EX, 2000))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(memberRepository.findById(MEMBER_A).getMoney()).isEqualTo(8000); // rollback
+        assertThat(txExecutor.getRetryCount()).isZero();
+    }
+
+}
@@ -3,6 +3,7 @@ package hdxian.jdbc.service;
 
 import hdxian.jdbc.domain.Member;
 import hdxian.jdbc.repository.*;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
@@ -63,6 +64,7 @@ class MemberServiceV4Test {
         MemberRepository memberRepository() {
 //            return new MemberRepositoryV4_1(dataSource);
 //            return new MemberRepositoryV4_2(dataSource);
+//            return new MemoryMemberRepository(); // DB 없이 실행하려면 MemoryTransactionManager도 등록 (MemberServiceV4MemoryTest)
             return new MemberRepositoryV5(dataSource);
         }
 
@@ -101,7 +103,7 @@ class MemberServiceV4Test {
 
         // when
         // A -> B: transfer 2000
-        memberService.accountTransfer(memberA.getMemberId(), memberB.getMemberId(), 2000);
+        TransferResult result = memberService.accountTransfer(memberA.getMemberId(), memberB.getMemberId(), 2000);
 
         // then
         Member findMemberA = memberRepository.findById(memberA.getMemberId());
@@ -109,6 +111,10 @@ class MemberServiceV4Test {
 
         assertThat(findMemberA.getMoney()).isEqualTo(8000);
         assertThat(findMemberB.getMoney()).isEqualTo(12000);
+
+        // 이체 결과로 받은 잔액 == DB의 잔액
+        assertThat(result.getFromMoney()).isEqualTo(findMemberA.getMoney());
+        assertThat(result.getToMoney()).isEqualTo(findMemberB.getMoney());
     }
 
     @Test
@@ -133,5 +139,23 @@ class MemberServiceV4Test {
         assertThat(findMemberEx.getMoney()).isEqualTo(10000);
     }
 
+    @Test
+    @DisplayName("잔액 부족")
+    public void accountTransferInsufficientMoney() {
+        // given
+        Member memberA = new Member(MEMBER_A, 1000);
+        Member memberB = new Member(MEMBER_B, 10000);
+        memberRepository.save(memberA);
+        memberRepository.save(memberB);
+
+        // when
+        // A -> B: transfer 2000 (money of memberA is not enough)
+        assertThatThrownBy(() -> memberService.accountTransfer(memberA.getMemberId(), memberB.getMemberId(), 2000))
+                .isInstanceOf(InsufficientMoneyException.class);
+
+        // then
+        assertThat(memberRepository.findById(memberA.getMemberId()).getMoney()).isEqualTo(1000);
+        assertThat(memberRepository.findById(memberB.getMemberId()).getMoney()).isEqualTo(10000);
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,208 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ForwardingMemberRepository;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.MemberRepositoryV5;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MemberServiceV5 - 낙관적 락 이체
+ * 충돌하면 롤백 후 재시도, 동시 이체에서도 전체 잔액 합계 보존
+ */
+@Slf4j
+@SpringBootTest
+class MemberServiceV5Test {
+
+    static final int THREADS = 16;
+    static final int TRANSFERS_PER_THREAD = 20;
+    static final int ACCOUNTS = 8;
+    static final int INITIAL_MONEY = 100000;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MemberServiceV5 memberService;
+
+    @Autowired
+    private RetryingTransactionExecutor txExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TestConfiguration
+    static class testConfig {
+
+        private final DataSource dataSource;
+
+        public testConfig(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Bean
+        MemberRepository memberRepository() {
+            return new MemberRepositoryV5(dataSource);
+        }
+
+        // 동시성 테스트에서 재시도 한도(횟수, 예산)에 걸리지 않도록 넉넉하게
+        @Bean
+        RetryingTransactionExecutor txExecutor(PlatformTransactionManager transactionManager) {
+            return new RetryingTransactionExecutor(transactionManager, 100, 1, 20, 100, 100000);
+        }
+
+        @Bean
+        MemberServiceV5 memberServiceV5(RetryingTransactionExecutor txExecutor) {
+            return new MemberServiceV5(txExecutor, memberRepository());
+        }
+
+    }
+
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            memberRepository.save(new Member(accountId(i), INITIAL_MONEY));
+        }
+    }
+
+    @AfterEach
+    void after() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            memberRepository.delete(accountId(i));
+        }
+        memberRepository.delete("ex");
+    }
+
+    @Test
+    void accountTransfer() {
+        TransferResult result = memberService.accountTransfer(accountId(0), accountId(1), 2000);
+
+        Member from = memberRepository.findById(accountId(0));
+        Member to = memberRepository.findById(accountId(1));
+        assertThat(from.getMoney()).isEqualTo(INITIAL_MONEY - 2000);
+        assertThat(to.getMoney()).isEqualTo(INITIAL_MONEY + 2000);
+        assertThat(from.getVersion()).isEqualTo(1);
+        assertThat(result.getFromMoney()).isEqualTo(from.getMoney());
+        assertThat(result.getToMoney()).isEqualTo(to.getMoney());
+    }
+
+    @Test
+    void accountTransferRollback() {
+        memberRepository.save(new Member("ex", 10000));
+
+        assertThatThrownBy(() -> memberService.accountTransfer(accountId(0), "ex", 2000))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> memberService.accountTransfer(accountId(0), accountId(1), INITIAL_MONEY + 1))
+                .isInstanceOf(InsufficientMoneyException.class);
+
+        assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+        assertThat(memberRepository.findById("ex").getMoney()).isEqualTo(10000);
+    }
+
+    @Test
+    void retryOnStaleVersion() throws Exception {
+        // 첫 번째 versioned update 직전에 다른 커넥션(별도 스레드, 자동 커밋)이 출금 계좌를 변경 -> 한 번 충돌 후 재시도
+        AtomicBoolean interfered = new AtomicBoolean();
+        MemberRepository interfering = new ForwardingMemberRepository(memberRepository) {
+            @Override
+            public void update(String memberId, int money, int version) {
+                if (interfered.compareAndSet(false, true)) {
+                    CompletableFuture.runAsync(() -> delegate.deposit(memberId, 100)).join();
+                }
+                super.update(memberId, money, version);
+            }
+        };
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager);
+        MemberServiceV5 service = new MemberServiceV5(executor, interfering);
+
+        service.accountTransfer(accountId(0), accountId(1), 2000);
+
+        assertThat(executor.getRetryCount()).isEqualTo(1);
+        assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY + 100 - 2000);
+        assertThat(memberRepository.findById(accountId(1)).getMoney()).isEqualTo(INITIAL_MONEY + 2000);
+    }
+
+    @Test
+    void giveUpAfterMaxAttempts() {
+        // 매번 충돌 -> maxAttempts번 시도 후 예외
+        MemberRepository alwaysStale = new ForwardingMemberRepository(memberRepository) {
+            @Override
+            public void update(String memberId, int money, int version) {
+                super.update(memberId, money, version - 1);
+            }
+        };
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 3, 0, 0);
+        MemberServiceV5 service = new MemberServiceV5(executor, alwaysStale);
+
+        assertThatThrownBy(() -> service.accountTransfer(accountId(0), accountId(1), 2000))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(executor.getRetryCount()).isEqualTo(2);
+        assertThat(executor.getGiveUpCount()).isEqualTo(1);
+        assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+    }
+
+    @Test
+    void concurrentTransfers() throws Exception {
+        AtomicInteger transfers = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        memberService.accountTransfer(accountId(from), accountId(to), 1);
+                        transfers.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            log.info("transfers={}, retries={}", transfers.get(), txExecutor.getRetryCount());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(transfers.get()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+
+        int total = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            total += memberRepository.findById(accountId(i)).getMoney();
+        }
+        assertThat(total).isEqualTo(ACCOUNTS * INITIAL_MONEY);
+    }
+
+    private static String accountId(int i) {
+        return "opt" + i;
+    }
+
+}
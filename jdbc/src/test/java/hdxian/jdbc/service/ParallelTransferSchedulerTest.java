@@ -0,0 +1,153 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.MemoryMemberRepository;
+import hdxian.jdbc.repository.MemoryTransactionManager;
+import hdxian.jdbc.service.TransferOutcome.RejectReason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MemoryMemberRepository + MemoryTransactionManager (H2 서버 없이 실행)
+ * MemberServiceV4는 스프링 빈(프록시) -> 이체마다 @Transactional 적용
+ */
+@SpringBootTest(properties = "spring.sql.init.mode=never") // DB 마이그레이션 생략 (커넥션을 얻지 않음)
+class ParallelTransferSchedulerTest {
+
+    @Autowired
+    private MemoryMemberRepository memberRepository;
+
+    @Autowired
+    private MemberServiceV4 memberService;
+
+    @TestConfiguration
+    static class testConfig {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new MemoryTransactionManager();
+        }
+
+        @Bean
+        MemoryMemberRepository memberRepository() {
+            return new MemoryMemberRepository();
+        }
+
+        @Bean
+        MemberServiceV4 memberServiceV4(MemberRepository memberRepository) {
+            return new MemberServiceV4(memberRepository);
+        }
+
+    }
+
+    @AfterEach
+    void after() {
+        memberRepository.clear();
+    }
+
+    @Test
+    void waves() {
+        List<List<Integer>> waves = ParallelTransferScheduler.waves(List.of(
+                new TransferRequest("memberA", "memberB", 10), // 0
+                new TransferRequest("memberC", "memberD", 10), // 0
+                new TransferRequest("memberB", "memberC", 10), // 1 (B, C 모두 wave 0에서 사용)
+                new TransferRequest("memberE", "memberA", 10), // 1
+                new TransferRequest("memberD", "memberF", 10), // 1
+                new TransferRequest("memberA", "memberB", 10), // 2
+                new TransferRequest("memberG", "memberH", 10))); // 0
+
+        assertThat(waves).containsExactly(List.of(0, 1, 6), List.of(2, 3, 4), List.of(5));
+    }
+
+    @Test
+    void outcomes() {
+        memberRepository.save(new Member("memberA", 100));
+        memberRepository.save(new Member("memberB", 0));
+        memberRepository.save(new Member("ex", 0));
+
+        List<TransferOutcome> outcomes;
+        try (ParallelTransferScheduler scheduler = new ParallelTransferScheduler(memberService, 4)) {
+            outcomes = scheduler.transferAll(List.of(
+                    new TransferRequest("memberB", "memberA", 10), // B 잔액 0
+                    new TransferRequest("memberA", "memberB", 60),
+                    new TransferRequest("memberA", "ex", 10),      // validation() 예외 -> 롤백
+                    new TransferRequest("memberB", "memberA", 60)));
+        }
+
+        assertThat(outcomes).extracting(TransferOutcome::getRejectReason).containsExactly(
+                RejectReason.INSUFFICIENT_MONEY, null, RejectReason.FAILED, null);
+        assertThat(outcomes.get(2).getError()).isInstanceOf(IllegalStateException.class);
+        assertThat(memberRepository.findById("memberA").getMoney()).isEqualTo(100);
+        assertThat(memberRepository.findById("memberB").getMoney()).isZero();
+        assertThat(memberRepository.findById("ex").getMoney()).isZero();
+    }
+
+    @Test
+    void sameResultAsSequentialTransfers() {
+        // 무작위 이체 목록: 병렬 실행 결과 == 한 건씩 실행한 결과
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add("member" + i);
+        }
+        MemoryMemberRepository sequential = new MemoryMemberRepository();
+        for (String memberId : ids) {
+            memberRepository.save(new Member(memberId, 100));
+            sequential.save(new Member(memberId, 100));
+        }
+
+        Random random = new Random(7);
+        List<TransferRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String fromId = ids.get(random.nextInt(ids.size()));
+            String toId = ids.get(random.nextInt(ids.size()));
+            if (!fromId.equals(toId)) {
+                requests.add(new TransferRequest(fromId, toId, 1 + random.nextInt(80)));
+            }
+        }
+
+        List<TransferOutcome> outcomes;
+        try (ParallelTransferScheduler scheduler = new ParallelTransferScheduler(memberService, 8)) {
+            outcomes = scheduler.transferAll(requests);
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            boolean accepted;
+            try {
+                sequential.withdraw(request.getFromId(), request.getAmount());
+                sequential.deposit(request.getToId(), request.getAmount());
+                accepted = true;
+            } catch (RuntimeException e) {
+                accepted = false;
+            }
+            assertThat(outcomes.get(i).isAccepted()).as("request %d", i).isEqualTo(accepted);
+        }
+        for (String memberId : ids) {
+            assertThat(memberRepository.findById(memberId).getMoney()).isEqualTo(sequential.findById(memberId).getMoney());
+        }
+
+        // 같은 wave의 이체는 계좌가 겹치지 않음
+        for (List<Integer> wave : ParallelTransferScheduler.waves(requests)) {
+            Set<String> used = new HashSet<>();
+            for (int index : wave) {
+                assertThat(used.add(requests.get(index).getFromId())).isTrue();
+                assertThat(used.add(requests.get(index).getToId())).isTrue();
+            }
+        }
+    }
+
+}
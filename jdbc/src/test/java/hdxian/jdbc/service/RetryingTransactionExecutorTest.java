@@ -0,0 +1,104 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.repository.MemoryTransactionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// DB 없이 실행 (MemoryTransactionManager)
+class RetryingTransactionExecutorTest {
+
+    MemoryTransactionManager transactionManager = new MemoryTransactionManager();
+
+    @Test
+    void retryTransientFailure() {
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 5, 0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(status -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(executor.getRetryCount()).isEqualTo(2);
+        assertThat(executor.getGiveUpCount()).isZero();
+    }
+
+    @Test
+    void noRetryForNonTransientFailure() {
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 5, 0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(status -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("an Error occurs in validation()");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> executor.execute(status -> {
+            attempts.incrementAndGet();
+            throw new DuplicateKeyException("duplicate key");
+        })).isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(executor.getRetryCount()).isZero();
+    }
+
+    @Test
+    void giveUpAfterMaxAttempts() {
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 3, 0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(status -> {
+            attempts.incrementAndGet();
+            throw new DeadlockLoserDataAccessException("deadlock", null);
+        })).isInstanceOf(DeadlockLoserDataAccessException.class);
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(executor.getGiveUpCount()).isEqualTo(1);
+        assertThat(executor.getBudgetExhaustedCount()).isZero();
+    }
+
+    @Test
+    void retryBudget() {
+        // 예산 2번, 호출당 적립 없음 -> 재시도 2번 후에는 첫 실패에서 바로 포기
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 10, 0, 0, 0, 2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(status -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("lock timeout");
+        })).isInstanceOf(CannotAcquireLockException.class);
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(executor.getRetryCount()).isEqualTo(2);
+        assertThat(executor.getBudgetExhaustedCount()).isEqualTo(1);
+        assertThat(executor.getRemainingBudget()).isZero();
+    }
+
+    @Test
+    void noRetryInsideExistingTransaction() {
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 5, 0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(outer ->
+                executor.execute(status -> {
+                    attempts.incrementAndGet();
+                    throw new CannotAcquireLockException("lock timeout");
+                })
+        )).isInstanceOf(CannotAcquireLockException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(executor.getRetryCount()).isZero();
+    }
+
+}
@@ -0,0 +1,138 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.MemberRepository;
+import hdxian.jdbc.repository.MemberRepositoryV5;
+import hdxian.jdbc.repository.ex.InsufficientMoneyException;
+import hdxian.jdbc.service.TransferOutcome.RejectReason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SavepointTransferService - savepoint(NESTED)가 필요하므로 H2 서버 + DataSourceTransactionManager로 실행
+ */
+@SpringBootTest
+class SavepointTransferServiceTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SavepointTransferService service;
+
+    @TestConfiguration
+    static class testConfig {
+
+        private final DataSource dataSource;
+
+        public testConfig(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Bean
+        MemberRepository memberRepository() {
+            return new MemberRepositoryV5(dataSource);
+        }
+
+        @Bean
+        SavepointTransferService savepointTransferService(PlatformTransactionManager transactionManager) {
+            return new SavepointTransferService(transactionManager, memberRepository());
+        }
+
+    }
+
+    @BeforeEach
+    void before() {
+        memberRepository.save(new Member("spA", 100));
+        memberRepository.save(new Member("spB", 0));
+        memberRepository.save(new Member("ex", 0));
+    }
+
+    @AfterEach
+    void after() {
+        memberRepository.delete("spA");
+        memberRepository.delete("spB");
+        memberRepository.delete("ex");
+    }
+
+    @Test
+    void partialRollback() {
+        List<TransferOutcome> outcomes = service.transferAll(List.of(
+                new TransferRequest("spA", "spB", 30),
+                new TransferRequest("spA", "ex", 10),      // validation() 예외 -> 출금도 롤백
+                new TransferRequest("spB", "spA", 50),     // B 잔액 30
+                new TransferRequest("spA", "nobody", 10),  // 입금 계좌 없음 -> 출금도 롤백
+                new TransferRequest("spA", "spB", 0),
+                new TransferRequest("spA", "spA", 10),     // 같은 계좌
+                new TransferRequest("spB", "spA", 20)));
+
+        assertThat(outcomes).extracting(TransferOutcome::getRejectReason).containsExactly(
+                null,
+                RejectReason.FAILED,
+                RejectReason.INSUFFICIENT_MONEY,
+                RejectReason.MEMBER_NOT_FOUND,
+                RejectReason.INVALID_REQUEST,
+                RejectReason.INVALID_REQUEST,
+                null);
+        assertThat(outcomes.get(1).getError()).isInstanceOf(IllegalStateException.class);
+
+        // 수락된 두 건만 커밋
+        assertThat(memberRepository.findById("spA").getMoney()).isEqualTo(90);
+        assertThat(memberRepository.findById("spB").getMoney()).isEqualTo(10);
+        assertThat(memberRepository.findById("ex").getMoney()).isZero();
+    }
+
+    @Test
+    void moneyOutOfRangeOnlyForNumericOverflow() {
+        memberRepository.update("spB", Integer.MAX_VALUE);
+
+        List<TransferOutcome> outcomes = service.transferAll(List.of(new TransferRequest("spA", "spB", 1)));
+
+        // H2: SQLState 22003 -> DataIntegrityViolationException
+        assertThat(outcomes.get(0).getRejectReason()).isEqualTo(RejectReason.MONEY_OUT_OF_RANGE);
+        assertThat(memberRepository.findById("spA").getMoney()).isEqualTo(100);
+
+        // 범위 초과가 아닌 무결성 위반은 FAILED
+        TransferOutcome other = TransferOutcome.failed(new TransferRequest("spA", "spB", 1),
+                new DataIntegrityViolationException("constraint violation"));
+        assertThat(other.getRejectReason()).isEqualTo(RejectReason.FAILED);
+    }
+
+    @Test
+    void savepointInCallerTransaction() {
+        // 호출한 쪽 트랜잭션 안에서 사용: 실패한 이체만 되돌리고, 바깥 트랜잭션이 롤백되면 전부 롤백
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+
+        txTemplate.executeWithoutResult(status -> {
+            assertThat(service.transferInSavepoint(new TransferRequest("spA", "spB", 40)).getToMoney()).isEqualTo(40);
+            assertThatThrownBy(() -> service.transferInSavepoint(new TransferRequest("spA", "spB", 100)))
+                    .isInstanceOf(InsufficientMoneyException.class);
+        });
+        assertThat(memberRepository.findById("spA").getMoney()).isEqualTo(60);
+
+        txTemplate.executeWithoutResult(status -> {
+            service.transferAll(List.of(new TransferRequest("spA", "spB", 60)));
+            status.setRollbackOnly();
+        });
+        assertThat(memberRepository.findById("spA").getMoney()).isEqualTo(60);
+        assertThat(memberRepository.findById("spB").getMoney()).isEqualTo(40);
+    }
+
+}
@@ -0,0 +1,194 @@
+package hdxian.jdbc.service;
+
+import hdxian.jdbc.domain.Member;
+import hdxian.jdbc.repository.ForwardingMemberRepository;
+import hdxian.jdbc.repository.MemoryMemberRepository;
+import hdxian.jdbc.repository.MemoryTransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MemoryMemberRepository + MemoryTransactionManager (H2 서버 없이 실행)
+ * 트랜잭션 시작(= DB에서는 커넥션 획득) 수를 세는 트랜잭션 매니저로, 같은 계좌의 이체가 트랜잭션 시작 전에 줄을 서는지 확인
+ */
+@SpringBootTest(properties = "spring.sql.init.mode=never") // DB 마이그레이션 생략 (커넥션을 얻지 않음)
+class StripedLockTransferServiceTest {
+
+    static final String HOT = "hot";
+    static final AtomicBoolean FAIL_NEXT_WITHDRAW = new AtomicBoolean();
+
+    @Autowired
+    private MemoryMemberRepository memberRepository;
+
+    @Autowired
+    private MemberServiceV4 memberService;
+
+    @Autowired
+    private CountingTransactionManager transactionManager;
+
+    @TestConfiguration
+    static class testConfig {
+
+        @Bean
+        CountingTransactionManager transactionManager() {
+            return new CountingTransactionManager();
+        }
+
+        @Bean
+        MemoryMemberRepository memberRepository() {
+            return new MemoryMemberRepository();
+        }
+
+        // FAIL_NEXT_WITHDRAW가 켜져 있으면 출금 한 번을 일시적 오류로 실패
+        @Bean
+        MemberServiceV4 memberServiceV4(MemoryMemberRepository memberRepository) {
+            return new MemberServiceV4(new ForwardingMemberRepository(memberRepository) {
+                @Override
+                public Member withdraw(String memberId, int amount) {
+                    if (FAIL_NEXT_WITHDRAW.getAndSet(false)) {
+                        throw new CannotAcquireLockException("lock timeout (test)");
+                    }
+                    return super.withdraw(memberId, amount);
+                }
+            });
+        }
+
+    }
+
+    @AfterEach
+    void after() {
+        memberRepository.clear();
+        FAIL_NEXT_WITHDRAW.set(false);
+    }
+
+    @Test
+    void sameAccountSerializedBeforeTransaction() throws Exception {
+        // 모든 이체가 hot 계좌로 입금 -> 동시에 열린 트랜잭션은 항상 1개
+        int threads = 16;
+        int transfers = 100;
+        memberRepository.save(new Member(HOT, 0));
+        for (int t = 0; t < threads; t++) {
+            memberRepository.save(new Member("acct" + t, transfers));
+        }
+        StripedLockTransferService service = new StripedLockTransferService(new AccountLockManager(), memberService);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String fromId = "acct" + t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < transfers; i++) {
+                        service.accountTransfer(fromId, HOT, 1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(memberRepository.findById(HOT).getMoney()).isEqualTo(threads * transfers);
+        assertThat(transactionManager.maxActive.get()).isEqualTo(1);
+    }
+
+    @Test
+    void retryReleasesLocksBetweenAttempts() {
+        // 첫 시도가 일시적 오류 -> 락을 놓고 대기한 뒤 다시 잡아서 재시도
+        memberRepository.save(new Member("memberA", 10000));
+        memberRepository.save(new Member(HOT, 0));
+
+        AtomicInteger lockedCalls = new AtomicInteger();
+        AtomicBoolean heldDuringBackoff = new AtomicBoolean();
+        AccountLockManager lockManager = new AccountLockManager() {
+            @Override
+            public <T> T executeLocked(String memberId1, String memberId2, Supplier<T> action) {
+                lockedCalls.incrementAndGet();
+                return super.executeLocked(memberId1, memberId2, action);
+            }
+        };
+        // 재시도 대기 중에 다른 스레드가 hot 계좌 락을 잡을 수 있는지 확인 (대기는 최대 50ms)
+        RetryingTransactionExecutor txExecutor = new RetryingTransactionExecutor(transactionManager, 3, 50, 50) {
+            @Override
+            public <T> T retry(Supplier<T> attempt) {
+                return super.retry(() -> {
+                    if (lockedCalls.get() > 0) {
+                        heldDuringBackoff.set(!CompletableFuture.supplyAsync(
+                                () -> lockManager.executeLocked(HOT, HOT, () -> true)).join());
+                    }
+                    return attempt.get();
+                });
+            }
+        };
+        StripedLockTransferService service = new StripedLockTransferService(lockManager, memberService, txExecutor);
+
+        FAIL_NEXT_WITHDRAW.set(true);
+        TransferResult result = service.accountTransferWithRetry("memberA", HOT, 1000);
+
+        assertThat(result.getToMoney()).isEqualTo(1000);
+        assertThat(txExecutor.getRetryCount()).isEqualTo(1);
+        assertThat(lockedCalls.get()).isEqualTo(3); // 시도 2번 + 확인용 1번
+        assertThat(heldDuringBackoff.get()).isFalse();
+    }
+
+    // 동시에 열려 있는 (새) 트랜잭션 수를 셈
+    static class CountingTransactionManager implements PlatformTransactionManager {
+
+        private final MemoryTransactionManager delegate = new MemoryTransactionManager();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            TransactionStatus status = delegate.getTransaction(definition);
+            if (status.isNewTransaction()) {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            }
+            return status;
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            try {
+                delegate.commit(status);
+            } finally {
+                if (status.isNewTransaction()) {
+                    active.decrementAndGet();
+                }
+            }
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            try {
+                delegate.rollback(status);
+            } finally {
+                if (status.isNewTransaction()) {
+                    active.decrementAndGet();
+                }
+            }
+        }
+
+    }
+
+}